@@ -0,0 +1,95 @@
+package com.example.banksys.bench;
+
+import com.example.banksys.service.LongTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск счёта по id: {@link LongTable} против прежнего {@code ConcurrentHashMap<Long, Account>}
+ * на 1M и 5M последовательных id, в случайном порядке (промахи кэша процессора).
+ * Вместе с таблицами в setUp печатается примерный объём памяти на запись;
+ * аллокации на поиск видны с {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AccountTableBenchmark {
+
+    private static final int PROBES = 1 << 16;
+
+    @Param({"1000000", "5000000"})
+    public int accounts;
+
+    LongTable<Object> table;
+    Map<Long, Object> map;
+    long[] ids;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        table = new LongTable<>();
+        for (long id = 1; id <= accounts; id++) {
+            table.put(id, new Object());
+        }
+        long afterTable = usedHeap();
+        map = new ConcurrentHashMap<>();
+        for (long id = 1; id <= accounts; id++) {
+            map.put(id, new Object());
+        }
+        long afterMap = usedHeap();
+        // Сами значения (по 16 байт) одинаковы в обоих случаях и входят в оба замера.
+        System.out.printf("%nLongTable: ~%d Б/запись, ConcurrentHashMap: ~%d Б/запись%n",
+                (afterTable - before) / accounts, (afterMap - afterTable) / accounts);
+
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new long[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            ids[i] = 1 + random.nextInt(accounts);
+        }
+    }
+
+    @Benchmark
+    public Object longTableGet(Cursor cursor) {
+        return table.get(nextId(cursor));
+    }
+
+    @Benchmark
+    public Object concurrentHashMapGet(Cursor cursor) {
+        return map.get(nextId(cursor));
+    }
+
+    private long nextId(Cursor cursor) {
+        return ids[cursor.next++ & (PROBES - 1)];
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
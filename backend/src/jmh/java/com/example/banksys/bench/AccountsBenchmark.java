@@ -0,0 +1,63 @@
+package com.example.banksys.bench;
+
+import com.example.banksys.dto.AccountDto;
+import com.example.banksys.dto.TransferRequest;
+import com.example.banksys.service.AccountDemoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный список счетов (GET /api/accounts) на 10k и 100k счетов:
+ * из готового снимка и с пересборкой снимка после перевода.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountsBenchmark {
+
+    @Param({"10000", "100000"})
+    public int accounts;
+
+    AccountDemoService service;
+    TransferRequest transfer;
+    boolean flip;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = BenchmarkFixtures.service(accounts, 100_000);
+        transfer = new TransferRequest();
+        transfer.setAmount(new BigDecimal("0.01"));
+        transfer.setDescription("bench");
+    }
+
+    @Benchmark
+    public List<AccountDto> getAccounts() {
+        return service.getAccounts();
+    }
+
+    @Benchmark
+    public List<AccountDto> getAccountsAfterTransfer() {
+        flip = !flip;
+        transfer.setFromAccountId(flip ? 1L : 2L);
+        transfer.setToAccountId(flip ? 2L : 1L);
+        service.transfer(transfer);
+        return service.getAccounts();
+    }
+}
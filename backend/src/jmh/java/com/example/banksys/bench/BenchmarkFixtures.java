@@ -0,0 +1,114 @@
+package com.example.banksys.bench;
+
+import com.example.banksys.journal.AccountJournal;
+import com.example.banksys.metrics.BankMetrics;
+import com.example.banksys.model.Employee;
+import com.example.banksys.repository.AccountRepository;
+import com.example.banksys.repository.EmployeeRepository;
+import com.example.banksys.repository.LedgerChangeRepository;
+import com.example.banksys.repository.RoleRepository;
+import com.example.banksys.repository.TransferRepository;
+import com.example.banksys.service.AccountDemoService;
+import com.example.banksys.service.AuthorizationIndex;
+import com.example.banksys.service.LedgerPersistenceService;
+import com.example.banksys.service.StatementBook;
+import com.example.banksys.service.TransferHistoryStore;
+import com.example.banksys.service.TransferHistoryWriter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Собирает {@link AccountDemoService} без Spring и без БД: репозитории заменены
+ * заглушками в памяти, чтобы результаты были воспроизводимы офлайн.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static BankMetrics metrics() {
+        return new BankMetrics(new SimpleMeterRegistry());
+    }
+
+    static String username(int index) {
+        return "user" + index;
+    }
+
+    /** Сотрудники user0..userN-1 без ролей — им разрешены переводы и кредиты. */
+    static EmployeeRepository employees(int count) {
+        List<Employee> employees = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            employees.add(new Employee("Benchmark " + i, username(i), "password"));
+        }
+        return stub(EmployeeRepository.class, Map.of(
+                "findAll", args -> employees,
+                "findAllWithRoles", args -> employees,
+                "count", args -> (long) employees.size(),
+                "findByUsername", args -> employees.stream()
+                        .filter(e -> e.getUsername().equals(args[0]))
+                        .findFirst()
+        ));
+    }
+
+    static AccountDemoService service(int users, int historyRetention) {
+        return service(employees(users), historyRetention, disabledJournal());
+    }
+
+    static AccountDemoService service(EmployeeRepository employees, int historyRetention, AccountJournal journal) {
+        RoleRepository roles = stub(RoleRepository.class, Map.of(
+                "findAll", args -> List.of(),
+                "findByName", args -> Optional.empty()
+        ));
+        AuthorizationIndex authorizationIndex = new AuthorizationIndex(employees, roles);
+        authorizationIndex.rebuild();
+        LedgerPersistenceService ledger = new LedgerPersistenceService(
+                stub(AccountRepository.class, Map.of()), employees,
+                stub(LedgerChangeRepository.class, Map.of()), null, false, 1000, metrics());
+        TransferHistoryWriter historyWriter = new TransferHistoryWriter(
+                stub(TransferRepository.class, Map.of()), null, false, 1024, 100, "block", metrics());
+        AccountDemoService service = new AccountDemoService(
+                employees,
+                authorizationIndex,
+                new TransferHistoryStore(historyRetention),
+                new StatementBook(400),
+                journal,
+                ledger,
+                historyWriter,
+                metrics()
+        );
+        service.seedDemoAccounts();
+        return service;
+    }
+
+    static AccountJournal disabledJournal() {
+        return new AccountJournal(false, "unused", 1 << 20, 2, false, 0, metrics());
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> handlers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "toString":
+                    return "stub " + type.getSimpleName();
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    break;
+            }
+            Function<Object[], Object> handler = handlers.get(method.getName());
+            if (handler == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            return handler.apply(args);
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.banksys.bench;
+
+import com.example.banksys.dto.TransferHistoryPage;
+import com.example.banksys.dto.TransferRequest;
+import com.example.banksys.service.AccountDemoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getHistory на журнале из 10k и 1M записей: первая страница всего журнала,
+ * первая страница одного пользователя и страница из середины по курсору.
+ * Время ответа не должно зависеть от размера журнала.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class HistoryBenchmark {
+
+    private static final int USERS = 64;
+
+    @Param({"10000", "1000000"})
+    public int historySize;
+
+    @Param({"50"})
+    public int pageSize;
+
+    AccountDemoService service;
+    String username;
+    Long middleCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = BenchmarkFixtures.service(USERS, historySize);
+        TransferRequest request = new TransferRequest();
+        request.setAmount(new BigDecimal("0.01"));
+        request.setDescription("bench");
+        for (int i = 0; i < historySize; i++) {
+            long from = i % USERS;
+            long to = (from + 1 + (i / USERS) % (USERS - 1)) % USERS;
+            request.setFromAccountId(from + 1);
+            request.setToAccountId(to + 1);
+            service.transfer(request);
+        }
+        username = BenchmarkFixtures.username(USERS / 2);
+
+        // Курсор примерно из середины журнала: проходим страницы, пока не доберёмся до неё.
+        TransferHistoryPage page = service.getHistory(null, null, null, 500);
+        for (int skipped = 0; skipped < historySize / 2 && page.getNextCursor() != null; skipped += 500) {
+            page = service.getHistory(null, page.getNextCursor(), null, 500);
+        }
+        middleCursor = page.getNextCursor();
+    }
+
+    @Benchmark
+    public TransferHistoryPage latestPage() {
+        return service.getHistory(null, null, null, pageSize);
+    }
+
+    @Benchmark
+    public TransferHistoryPage latestUserPage() {
+        return service.getHistory(username, null, null, pageSize);
+    }
+
+    @Benchmark
+    public TransferHistoryPage middlePage() {
+        return service.getHistory(null, middleCursor, null, pageSize);
+    }
+}
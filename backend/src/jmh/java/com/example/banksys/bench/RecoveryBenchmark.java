@@ -0,0 +1,93 @@
+package com.example.banksys.bench;
+
+import com.example.banksys.dto.TransferRequest;
+import com.example.banksys.journal.AccountJournal;
+import com.example.banksys.repository.EmployeeRepository;
+import com.example.banksys.service.AccountDemoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Время старта (восстановления состояния) из журнала с историей в 10k и 1M
+ * переводов — с полным проигрыванием сегментов и со снимком.
+ * Со снимком время должно определяться числом счетов, а не длиной истории.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RecoveryBenchmark {
+
+    private static final int USERS = 1024;
+    private static final int SEGMENT_SIZE = 1 << 20;
+
+    @Param({"10000", "1000000"})
+    public int historySize;
+
+    @Param({"false", "true"})
+    public boolean snapshot;
+
+    Path directory;
+    EmployeeRepository employees;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("banksys-journal-bench");
+        employees = BenchmarkFixtures.employees(USERS);
+        AccountJournal journal = journal();
+        AccountDemoService service = BenchmarkFixtures.service(employees, 1024, journal);
+        TransferRequest request = new TransferRequest();
+        request.setAmount(new BigDecimal("0.01"));
+        request.setDescription("bench");
+        for (int i = 0; i < historySize; i++) {
+            request.setFromAccountId((long) (i % USERS) + 1);
+            request.setToAccountId((long) ((i + 1) % USERS) + 1);
+            service.transfer(request);
+        }
+        if (snapshot) {
+            journal.snapshot();
+        }
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public AccountDemoService recover() {
+        AccountJournal journal = journal();
+        AccountDemoService service = BenchmarkFixtures.service(employees, 1024, journal);
+        journal.close();
+        return service;
+    }
+
+    private AccountJournal journal() {
+        // Без fsync и без фонового снимка: измеряется только чтение журнала.
+        return new AccountJournal(true, directory.toString(), SEGMENT_SIZE, 2, false, 0, BenchmarkFixtures.metrics());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.banksys.bench;
+
+import com.example.banksys.BanksysApplication;
+import com.example.banksys.dto.EmployeeDto;
+import com.example.banksys.mapper.EmployeeMapper;
+import com.example.banksys.model.Employee;
+import com.example.banksys.repository.EmployeeRepository;
+import com.example.banksys.service.AuthTokenService;
+import com.example.banksys.service.TokenClaims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/employees/me: проверка подписанного токена против прежнего пути —
+ * findById с ленивой загрузкой ролей. База — H2 в памяти того же процесса,
+ * так что путь через БД здесь даже оптимистичен: без сети до PostgreSQL.
+ * Запускать с -prof gc, чтобы сравнить и аллокации.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenBenchmark {
+
+    ConfigurableApplicationContext context;
+    AuthTokenService tokens;
+    EmployeeRepository employees;
+    TransactionTemplate transaction;
+    String token;
+    long employeeId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.run(BanksysApplication.class,
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=jdbc:h2:mem:banksys-token-bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--banksys.journal.enabled=false");
+        tokens = context.getBean(AuthTokenService.class);
+        employees = context.getBean(EmployeeRepository.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        token = transaction.execute(status -> {
+            Employee employee = employees.findByUsername("manager1").orElseThrow();
+            employeeId = employee.getId();
+            return tokens.generateToken(employee);
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public EmployeeDto verifyToken() {
+        TokenClaims claims = tokens.verify(token);
+        return EmployeeMapper.toDto(claims);
+    }
+
+    @Benchmark
+    public EmployeeDto findById() {
+        return transaction.execute(status -> EmployeeMapper.toDto(employees.findById(employeeId).orElseThrow()));
+    }
+}
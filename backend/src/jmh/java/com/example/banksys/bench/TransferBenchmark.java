@@ -0,0 +1,113 @@
+package com.example.banksys.bench;
+
+import com.example.banksys.dto.LoanRequest;
+import com.example.banksys.dto.LoanResponse;
+import com.example.banksys.dto.TransferByUserRequest;
+import com.example.banksys.dto.TransferRequest;
+import com.example.banksys.dto.TransferResponse;
+import com.example.banksys.service.AccountDemoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * transfer / transferByUser / takeLoan на общей (contended) или своей для
+ * каждого потока (uncontended) паре счетов. Число потоков задаётся через -t.
+ * Режим SampleTime даёт перцентили задержки, Throughput — пропускную способность.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+    @Param({"uncontended", "contended"})
+    public String contention;
+
+    @Param({"1024"})
+    public int users;
+
+    AccountDemoService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = BenchmarkFixtures.service(users, 100_000);
+    }
+
+    @State(Scope.Thread)
+    public static class AccountPair {
+        TransferRequest forward;
+        TransferRequest backward;
+        TransferByUserRequest forwardByUser;
+        TransferByUserRequest backwardByUser;
+        LoanRequest loan;
+        boolean flip;
+
+        @Setup(Level.Trial)
+        public void setUp(TransferBenchmark benchmark, ThreadParams thread) {
+            int first = 0;
+            if ("uncontended".equals(benchmark.contention)) {
+                first = (thread.getThreadIndex() * 2) % (benchmark.users - 1);
+            }
+            int second = first + 1;
+            // Счета создаются в порядке сотрудников, id начинаются с 1.
+            forward = transfer(first + 1L, second + 1L);
+            backward = transfer(second + 1L, first + 1L);
+            forwardByUser = transferByUser(BenchmarkFixtures.username(first), BenchmarkFixtures.username(second));
+            backwardByUser = transferByUser(BenchmarkFixtures.username(second), BenchmarkFixtures.username(first));
+            loan = new LoanRequest();
+            loan.setAccountId(first + 1L);
+            loan.setAmount(new BigDecimal("1000"));
+        }
+
+        private static TransferRequest transfer(long from, long to) {
+            TransferRequest request = new TransferRequest();
+            request.setFromAccountId(from);
+            request.setToAccountId(to);
+            request.setAmount(new BigDecimal("0.01"));
+            request.setDescription("bench");
+            return request;
+        }
+
+        private static TransferByUserRequest transferByUser(String from, String to) {
+            TransferByUserRequest request = new TransferByUserRequest();
+            request.setFromUsername(from);
+            request.setToUsername(to);
+            request.setAmount(new BigDecimal("0.01"));
+            request.setDescription("bench");
+            return request;
+        }
+    }
+
+    @Benchmark
+    public TransferResponse transfer(AccountPair pair) {
+        pair.flip = !pair.flip;
+        return service.transfer(pair.flip ? pair.forward : pair.backward);
+    }
+
+    @Benchmark
+    public TransferResponse transferByUser(AccountPair pair) {
+        pair.flip = !pair.flip;
+        return service.transferByUser(pair.flip ? pair.forwardByUser : pair.backwardByUser);
+    }
+
+    @Benchmark
+    public LoanResponse takeLoan(AccountPair pair) {
+        return service.takeLoan(pair.loan);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.banksys.loadtest;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Готовит запросы к REST API для генератора нагрузки.
+ * Перед стартом логинится под демо-пользователями и запоминает их счета и токены.
+ */
+final class BankApiClient {
+
+    /** Пользователи только с ролью USER — им разрешены переводы. */
+    private static final String[][] CREDENTIALS = {
+            {"employee1", "password"},
+            {"demo1", "demo"},
+            {"demo2", "demo"},
+    };
+
+    private final URI baseUri;
+    private final HttpClient http;
+    private final JsonMapper json = JsonMapper.builder().build();
+    private final List<String> usernames = new ArrayList<>();
+    private final List<Long> accountIds = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+
+    BankApiClient(URI baseUri, HttpClient http) {
+        this.baseUri = baseUri;
+        this.http = http;
+    }
+
+    HttpClient http() {
+        return http;
+    }
+
+    void prepare() throws IOException, InterruptedException {
+        JsonNode accounts = json.readTree(send(get("/api/accounts")));
+        for (String[] credentials : CREDENTIALS) {
+            JsonNode login = json.readTree(send(login(credentials[0], credentials[1])));
+            Long accountId = null;
+            for (JsonNode account : accounts) {
+                if (credentials[0].equals(account.path("ownerUsername").asString())) {
+                    accountId = account.path("id").asLong();
+                    break;
+                }
+            }
+            if (accountId == null) {
+                throw new IllegalStateException("Нет счёта у пользователя " + credentials[0]);
+            }
+            usernames.add(credentials[0]);
+            accountIds.add(accountId);
+            tokens.add(login.path("token").asString());
+        }
+    }
+
+    HttpRequest request(Endpoint endpoint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(usernames.size());
+        // Получатель всегда отличается от отправителя; суммы маленькие и случайные по направлению,
+        // поэтому балансы не вырабатываются за время прогона.
+        int to = (from + 1 + random.nextInt(usernames.size() - 1)) % usernames.size();
+        return switch (endpoint) {
+            case TRANSFER -> post("/api/accounts/transfer", """
+                    {"fromAccountId":%d,"toAccountId":%d,"amount":1,"description":"load"}"""
+                    .formatted(accountIds.get(from), accountIds.get(to)));
+            case TRANSFER_BY_USER -> post("/api/accounts/transfer/by-user", """
+                    {"fromUsername":"%s","toUsername":"%s","amount":1,"description":"load"}"""
+                    .formatted(usernames.get(from), usernames.get(to)));
+            case HISTORY -> get("/api/accounts/transfers?user=" + usernames.get(from) + "&limit=50");
+            case LOGIN -> login(CREDENTIALS[from][0], CREDENTIALS[from][1]);
+            case ME -> builder("/api/employees/me")
+                    .header("Authorization", "Bearer " + tokens.get(from))
+                    .GET()
+                    .build();
+        };
+    }
+
+    private HttpRequest login(String username, String password) {
+        return post("/api/auth/login", """
+                {"username":"%s","password":"%s"}""".formatted(username, password));
+    }
+
+    private HttpRequest get(String path) {
+        return builder(path).GET().build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return builder(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(30));
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(request.uri() + " -> " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
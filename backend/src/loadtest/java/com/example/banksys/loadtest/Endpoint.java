@@ -0,0 +1,32 @@
+package com.example.banksys.loadtest;
+
+/**
+ * Эндпойнты, из которых складывается смесь нагрузки.
+ * Ключ используется в параметре {@code mix} и в именах файлов отчёта.
+ */
+enum Endpoint {
+    TRANSFER("transfer"),
+    TRANSFER_BY_USER("transfer-by-user"),
+    HISTORY("history"),
+    LOGIN("login"),
+    ME("me");
+
+    private final String key;
+
+    Endpoint(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    static Endpoint byKey(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный эндпойнт в смеси: " + key);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.banksys.loadtest;
+
+import com.example.banksys.BanksysApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Сквозной нагрузочный тест REST API.
+ * <p>
+ * Без параметра {@code url} поднимает приложение в этом же процессе на H2 в памяти
+ * (вместо PostgreSQL) с журналом во временном каталоге; с {@code url} бьёт в уже
+ * запущенный экземпляр. Параметры — {@code ключ=значение}:
+ * <ul>
+ *     <li>{@code rate} — запросов в секунду суммарно (по умолчанию 500);</li>
+ *     <li>{@code warmup}, {@code duration} — прогрев и измерение в секундах (10 и 60);</li>
+ *     <li>{@code mix} — доли эндпойнтов, см. {@link TrafficMix};</li>
+ *     <li>{@code out} — каталог для файлов {@code .hgrm} (target/loadtest).</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    private static final String DEFAULT_MIX = "transfer=30,transfer-by-user=20,history=30,login=5,me=15";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "500"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "10"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "60"));
+        TrafficMix mix = TrafficMix.parse(options.getOrDefault("mix", DEFAULT_MIX));
+        Path out = Path.of(options.getOrDefault("out", "target/loadtest"));
+
+        ConfigurableApplicationContext context = null;
+        URI baseUri;
+        if (options.containsKey("url")) {
+            baseUri = URI.create(options.get("url"));
+        } else {
+            context = startEmbedded();
+            baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+        }
+
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        try {
+            BankApiClient client = new BankApiClient(baseUri, http);
+            client.prepare();
+            System.out.printf("Нагрузка на %s: %.0f req/s, прогрев %d c, измерение %d c, смесь %s%n",
+                    baseUri, rate, warmup, duration, mix);
+            OpenModelDriver driver = new OpenModelDriver(client, mix);
+            driver.report(driver.run(rate, warmup, duration), duration, out, System.out);
+            System.out.println("Распределения HdrHistogram: " + out.toAbsolutePath());
+        } finally {
+            http.close();
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Демо-пользователи создаются {@code DataInitializer} уже после того, как
+     * сервис счетов засидирован, поэтому приложение стартует дважды на одной базе —
+     * как при обычном перезапуске, когда сотрудники уже есть в БД.
+     */
+    private static ConfigurableApplicationContext startEmbedded() throws Exception {
+        Path journalDir = Files.createTempDirectory("banksys-loadtest");
+        String[] properties = {
+                "--spring.datasource.url=jdbc:h2:mem:banksys-loadtest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--banksys.journal.dir=" + journalDir,
+        };
+        SpringApplication.run(BanksysApplication.class, properties).close();
+        return SpringApplication.run(BanksysApplication.class, properties);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Ожидается ключ=значение: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.banksys.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузка по открытой модели: запросы отправляются с постоянной частотой
+ * независимо от того, успел ли ответить предыдущий. Задержка считается от
+ * запланированного момента отправки, а не от фактического, поэтому очередь
+ * перед сервером попадает в хвосты (без coordinated omission).
+ */
+final class OpenModelDriver {
+
+    private final BankApiClient client;
+    private final TrafficMix mix;
+    private final Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+
+    OpenModelDriver(BankApiClient client, TrafficMix mix) {
+        this.client = client;
+        this.mix = mix;
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new Recorder(3));
+            errors.put(endpoint, new AtomicLong());
+        }
+    }
+
+    /**
+     * Гоняет нагрузку {@code warmupSeconds + durationSeconds} секунд и возвращает
+     * гистограммы задержек (в микросекундах) только за измерительный интервал.
+     */
+    Map<Endpoint, Histogram> run(double ratePerSecond, long warmupSeconds, long durationSeconds) {
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intended = start + i * period;
+                if (intended >= end) {
+                    break;
+                }
+                long delay;
+                while ((delay = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                Endpoint endpoint = mix.next(ThreadLocalRandom.current());
+                boolean measured = intended >= measureFrom;
+                executor.execute(() -> call(endpoint, intended, measured));
+            }
+            // close() дожидается всех запросов, отправленных до конца интервала.
+        }
+
+        Map<Endpoint, Histogram> result = new EnumMap<>(Endpoint.class);
+        recorders.forEach((endpoint, recorder) -> result.put(endpoint, recorder.getIntervalHistogram()));
+        return result;
+    }
+
+    long errors(Endpoint endpoint) {
+        return errors.get(endpoint).get();
+    }
+
+    private void call(Endpoint endpoint, long intended, boolean measured) {
+        boolean failed;
+        try {
+            HttpResponse<Void> response = client.http().send(
+                    client.request(endpoint), HttpResponse.BodyHandlers.discarding());
+            failed = response.statusCode() / 100 != 2;
+        } catch (IOException e) {
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!measured) {
+            return;
+        }
+        // Ошибки тоже учитываются в задержках: отказ под нагрузкой — тоже хвост.
+        recorders.get(endpoint).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+        if (failed) {
+            errors.get(endpoint).incrementAndGet();
+        }
+    }
+
+    /**
+     * Печатает сводку p50/p99/p99.9 и пропускную способность, а полные
+     * распределения HdrHistogram пишет в {@code <endpoint>.hgrm} (в миллисекундах).
+     */
+    void report(Map<Endpoint, Histogram> histograms, long durationSeconds, Path outputDir, PrintStream out)
+            throws IOException {
+        Files.createDirectories(outputDir);
+        out.printf(Locale.ROOT, "%-18s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Endpoint, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            out.printf(Locale.ROOT, "%-18s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey().key(),
+                    histogram.getTotalCount(),
+                    errors(entry.getKey()),
+                    (double) histogram.getTotalCount() / durationSeconds,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+            try (PrintStream file = new PrintStream(
+                    Files.newOutputStream(outputDir.resolve(entry.getKey().key() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(file, 1000.0);
+            }
+        }
+    }
+}
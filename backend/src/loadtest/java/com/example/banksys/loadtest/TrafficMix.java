@@ -0,0 +1,74 @@
+package com.example.banksys.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Доли эндпойнтов в нагрузке, например {@code transfer=40,history=30,me=30}.
+ */
+final class TrafficMix {
+
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+    private TrafficMix(Map<Endpoint, Integer> weights) {
+        endpoints = new Endpoint[weights.size()];
+        cumulativeWeights = new int[weights.size()];
+        int total = 0;
+        int i = 0;
+        for (Map.Entry<Endpoint, Integer> entry : weights.entrySet()) {
+            total += entry.getValue();
+            endpoints[i] = entry.getKey();
+            cumulativeWeights[i] = total;
+            i++;
+        }
+        totalWeight = total;
+    }
+
+    static TrafficMix parse(String spec) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Ожидается endpoint=вес: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Вес не может быть отрицательным: " + part);
+            }
+            if (weight > 0) {
+                weights.put(Endpoint.byKey(pair[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Смесь нагрузки пуста");
+        }
+        return new TrafficMix(weights);
+    }
+
+    Endpoint next(RandomGenerator random) {
+        int point = random.nextInt(totalWeight);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        int previous = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(endpoints[i].key()).append('=').append(cumulativeWeights[i] - previous);
+            previous = cumulativeWeights[i];
+        }
+        return sb.toString();
+    }
+}
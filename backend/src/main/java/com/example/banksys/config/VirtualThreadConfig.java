@@ -0,0 +1,25 @@
+package com.example.banksys.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Режим виртуальных потоков ({@code spring.threads.virtual.enabled=true}):
+ * Tomcat обрабатывает каждый запрос в виртуальном потоке, поэтому блокирующие
+ * JPA-вызовы контроллеров не исчерпывают пул платформенных потоков.
+ * Ограничителем допуска к Postgres служит сам пул Hikari: больше
+ * {@code maximum-pool-size} соединений не выдаётся, остальные потоки ждут
+ * не дольше {@code connection-timeout} и получают ошибку.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "banksys.diagnostics.pinning.enabled", havingValue = "true")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(Environment environment) {
+        long thresholdMs = environment.getProperty("banksys.diagnostics.pinning.threshold-ms", Long.class, 20L);
+        return new VirtualThreadPinningMonitor(thresholdMs);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.banksys.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Диагностика закрепления (pinning) виртуальных потоков: слушает JFR-событие
+ * {@code jdk.VirtualThreadPinned} и логирует стек, если виртуальный поток дольше
+ * порога не мог отпустить платформенный. С JDK 24 (JEP 491) {@code synchronized}
+ * поток не закрепляет; остаются блокировки в нативных вызовах и инициализаторах
+ * классов, а на более старых JDK — и внутри {@code synchronized} в библиотеках,
+ * например в драйвере JDBC.
+ */
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final int MAX_FRAMES = 12;
+
+    private final long thresholdMs;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(long thresholdMs) {
+        this.thresholdMs = thresholdMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(Duration.ofMillis(thresholdMs))
+                .withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", event -> {
+            StringBuilder message = new StringBuilder("Виртуальный поток закреплён на ")
+                    .append(event.getDuration().toMillis())
+                    .append(" мс");
+            RecordedStackTrace stackTrace = event.getStackTrace();
+            if (stackTrace != null) {
+                int shown = 0;
+                for (RecordedFrame frame : stackTrace.getFrames()) {
+                    if (shown++ == MAX_FRAMES) {
+                        message.append("\n    ...");
+                        break;
+                    }
+                    message.append("\n    at ")
+                            .append(frame.getMethod().getType().getName())
+                            .append('.')
+                            .append(frame.getMethod().getName())
+                            .append(':')
+                            .append(frame.getLineNumber());
+                }
+            }
+            log.warn("{}", message);
+        });
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
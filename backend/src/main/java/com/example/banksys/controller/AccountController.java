@@ -1,38 +1,85 @@
 package com.example.banksys.controller;
 
 import com.example.banksys.dto.AccountDto;
+import com.example.banksys.dto.AccountsSnapshot;
 import com.example.banksys.dto.LoanRequest;
+import com.example.banksys.dto.OpenAccountRequest;
+import com.example.banksys.dto.TransferBatchResponse;
 import com.example.banksys.dto.TransferRequest;
+import com.example.banksys.dto.TransferByNumberRequest;
 import com.example.banksys.dto.TransferByUserRequest;
 import com.example.banksys.dto.TransferHistoryItem;
+import com.example.banksys.dto.TransferHistoryPage;
 import com.example.banksys.service.AccountDemoService;
+import com.example.banksys.service.IdempotencyStore;
+import com.example.banksys.service.TransferFeed;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 //REST-контроллер
 
 @RestController
 @RequestMapping("/api/accounts")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {"X-Next-Cursor", "X-Prev-Cursor", "ETag", IdempotencyStore.REPLAYED_HEADER})
 public class AccountController {
 
     private final AccountDemoService accountDemoService;
+    private final IdempotencyStore idempotency;
+    private final JsonMapper jsonMapper;
+    private final TransferFeed feed;
 
-    public AccountController(AccountDemoService accountDemoService) {
+    public AccountController(AccountDemoService accountDemoService,
+                             IdempotencyStore idempotency,
+                             JsonMapper jsonMapper,
+                             TransferFeed feed) {
         this.accountDemoService = accountDemoService;
+        this.idempotency = idempotency;
+        this.jsonMapper = jsonMapper;
+        this.feed = feed;
     }
 
+    /**
+     * Список счетов с ETag версии. Если клиент прислал If-None-Match с той же
+     * версией, отвечаем 304 без тела и без сериализации списка.
+     */
     @GetMapping
-    public List<AccountDto> getAccounts() {
-        return accountDemoService.getAccounts();
+    public ResponseEntity<List<AccountDto>> getAccounts(WebRequest webRequest) {
+        AccountsSnapshot snapshot = accountDemoService.getAccountsSnapshot();
+        if (webRequest.checkNotModified(snapshot.getEtag())) {
+            // Статус 304 и заголовок ETag уже выставлены.
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .body(snapshot.getAccounts());
     }
 
-    @PostMapping("/transfer")
-    public ResponseEntity<?> transfer(@RequestBody TransferRequest request) {
+    /** Открывает пользователю дополнительный счёт (например, в другой валюте). */
+    @PostMapping
+    public ResponseEntity<?> openAccount(@RequestBody OpenAccountRequest request) {
         try {
-            return ResponseEntity.ok(accountDemoService.transfer(request));
+            return ResponseEntity.status(HttpStatus.CREATED).body(accountDemoService.openAccount(request));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IllegalStateException e) {
@@ -40,28 +87,283 @@ public class AccountController {
         }
     }
 
+    @PostMapping("/transfer")
+    public ResponseEntity<?> transfer(@RequestBody TransferRequest request,
+                                      @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotency.execute(idempotencyKey, "transfer", fingerprint(request), () -> {
+            try {
+                return ResponseEntity.ok(accountDemoService.transfer(request));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+            }
+        });
+    }
+
     @PostMapping("/transfer/by-user")
-    public ResponseEntity<?> transferByUser(@RequestBody TransferByUserRequest request) {
+    public ResponseEntity<?> transferByUser(@RequestBody TransferByUserRequest request,
+                                            @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotency.execute(idempotencyKey, "transfer-by-user", fingerprint(request), () -> {
+            try {
+                return ResponseEntity.ok(accountDemoService.transferByUser(request));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+            }
+        });
+    }
+
+    @PostMapping("/transfer/by-number")
+    public ResponseEntity<?> transferByNumber(@RequestBody TransferByNumberRequest request,
+                                              @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotency.execute(idempotencyKey, "transfer-by-number", fingerprint(request), () -> {
+            try {
+                return ResponseEntity.ok(accountDemoService.transferByNumber(request));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+            }
+        });
+    }
+
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<?> transferBatch(@RequestBody List<TransferRequest> requests,
+                                           @RequestParam(name = "mode", required = false) String mode) {
         try {
-            return ResponseEntity.ok(accountDemoService.transferByUser(request));
+            TransferBatchResponse response = accountDemoService.transferBatch(requests, mode);
+            if ("rejected".equals(response.getStatus())) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+            return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
-        } catch (IllegalStateException e) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         }
     }
 
+    /**
+     * История от новых к старым. Тело — массив записей, как и раньше;
+     * курсоры для следующих страниц приходят в заголовках X-Next-Cursor (before)
+     * и X-Prev-Cursor (after).
+     */
     @GetMapping("/transfers")
-    public List<TransferHistoryItem> history(@RequestParam(name = "user", required = false) String username) {
-        return accountDemoService.getHistory(username);
+    public ResponseEntity<?> history(@RequestParam(name = "user", required = false) String username,
+                                     @RequestParam(name = "limit", required = false) Integer limit,
+                                     @RequestParam(name = "before", required = false) Long before,
+                                     @RequestParam(name = "after", required = false) Long after) {
+        TransferHistoryPage page;
+        try {
+            page = accountDemoService.getHistory(username, before, after, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", String.valueOf(page.getNextCursor()));
+        }
+        if (page.getPrevCursor() != null) {
+            response.header("X-Prev-Cursor", String.valueOf(page.getPrevCursor()));
+        }
+        return response.body(page.getItems());
     }
 
-    @PostMapping("/loan")
-    public ResponseEntity<?> takeLoan(@RequestBody LoanRequest request) {
+    /**
+     * Выписка по счёту за дни {@code [from, to]} (ISO-даты, по умолчанию последние 30 дней):
+     * поступления, списания, выдача кредитов и число операций — итого и по дням.
+     */
+    @GetMapping("/{id}/statement")
+    public ResponseEntity<?> statement(@PathVariable("id") Long accountId,
+                                       @RequestParam(name = "from", required = false)
+                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                       @RequestParam(name = "to", required = false)
+                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
         try {
-            return ResponseEntity.ok(accountDemoService.takeLoan(request));
+            return ResponseEntity.ok(accountDemoService.getStatement(accountId, from, to));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    /**
+     * Поиск по истории: {@code q} — слова описания и логины участников (совпасть
+     * должны все), {@code minAmount}/{@code maxAmount} — границы суммы включительно.
+     */
+    @GetMapping("/transfers/search")
+    public ResponseEntity<?> searchHistory(@RequestParam(name = "q", required = false) String query,
+                                           @RequestParam(name = "minAmount", required = false) BigDecimal minAmount,
+                                           @RequestParam(name = "maxAmount", required = false) BigDecimal maxAmount,
+                                           @RequestParam(name = "limit", required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(accountDemoService.searchHistory(query, minAmount, maxAmount, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Живая лента новых переводов и кредитов (SSE) вместо опроса истории.
+     * Событие {@code transfer} несёт запись истории, её id — id события.
+     * После обрыва браузер сам переподключается с заголовком Last-Event-ID и
+     * получает пропущенное; без заголовка можно передать {@code lastEventId}.
+     */
+    @GetMapping("/transfers/stream")
+    public ResponseEntity<?> stream(@RequestParam(name = "user", required = false) String username,
+                                    @RequestParam(name = "lastEventId", required = false) Long lastEventIdParam,
+                                    @RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader) {
+        Long lastEventId = lastEventIdParam;
+        if (lastEventIdHeader != null && !lastEventIdHeader.isBlank()) {
+            try {
+                lastEventId = Long.parseLong(lastEventIdHeader.trim());
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body("Некорректный Last-Event-ID: " + lastEventIdHeader);
+            }
+        }
+        try {
+            return ResponseEntity.ok(feed.subscribe(username, lastEventId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Выгрузка истории для сверки: NDJSON (по записи на строку) или CSV, от старых
+     * записей к новым, период {@code [from, to)} в ISO-формате. Записи пишутся в ответ
+     * по мере обхода журнала, память не зависит от объёма выгрузки. Если клиент
+     * принимает gzip, ответ сжимается.
+     */
+    @GetMapping("/transfers/export")
+    public ResponseEntity<?> exportHistory(@RequestParam(name = "format", required = false) String format,
+                                           @RequestParam(name = "user", required = false) String username,
+                                           @RequestParam(name = "from", required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                           @RequestParam(name = "to", required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                           @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.parse(format);
+            // Тело пишется уже после отправки заголовков, поэтому ошибки параметров ловим заранее.
+            accountDemoService.validateExportRange(from, to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024)) {
+                if (exportFormat == ExportFormat.CSV) {
+                    writer.write("id,createdAt,fromUsername,fromAccountNumber,toUsername,toAccountNumber,amount,currency,description\n");
+                }
+                accountDemoService.exportHistory(username, from, to, item -> {
+                    try {
+                        if (exportFormat == ExportFormat.CSV) {
+                            writeCsv(writer, item);
+                        } else {
+                            writer.write(jsonMapper.writeValueAsString(item));
+                            writer.write('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Ошибка записи (обычно клиент оборвал соединение) прерывает обход журнала.
+                throw e.getCause();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("transfers." + exportFormat.extension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @PostMapping("/loan")
+    public ResponseEntity<?> takeLoan(@RequestBody LoanRequest request,
+                                      @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotency.execute(idempotencyKey, "loan", fingerprint(request), () -> {
+            try {
+                return ResponseEntity.ok(accountDemoService.takeLoan(request));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+            }
+        });
+    }
+
+    private static void writeCsv(Writer writer, TransferHistoryItem item) throws IOException {
+        writer.write(String.valueOf(item.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(item.getCreatedAt()));
+        writer.write(',');
+        writeCsvField(writer, item.getFromUsername());
+        writer.write(',');
+        writeCsvField(writer, item.getFromAccountNumber());
+        writer.write(',');
+        writeCsvField(writer, item.getToUsername());
+        writer.write(',');
+        writeCsvField(writer, item.getToAccountNumber());
+        writer.write(',');
+        writer.write(item.getAmount() == null ? "" : item.getAmount().toPlainString());
+        writer.write(',');
+        writeCsvField(writer, item.getCurrency());
+        writer.write(',');
+        writeCsvField(writer, item.getDescription());
+        writer.write('\n');
+    }
+
+    // RFC 4180: поле с запятой, кавычкой или переводом строки берётся в кавычки, кавычки удваиваются.
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static List<?> fingerprint(TransferRequest request) {
+        return request == null ? List.of() : Arrays.asList(request.getFromAccountId(), request.getToAccountId(),
+                amountKey(request.getAmount()), request.getDescription());
+    }
+
+    private static List<?> fingerprint(TransferByUserRequest request) {
+        return request == null ? List.of() : Arrays.asList(request.getFromUsername(), request.getToUsername(),
+                amountKey(request.getAmount()), request.getDescription(), request.getCurrency());
+    }
+
+    private static List<?> fingerprint(TransferByNumberRequest request) {
+        return request == null ? List.of() : Arrays.asList(request.getFromNumber(), request.getToNumber(),
+                amountKey(request.getAmount()), request.getDescription());
+    }
+
+    private static List<?> fingerprint(LoanRequest request) {
+        return request == null ? List.of() : Arrays.asList(request.getAccountId(), amountKey(request.getAmount()),
+                request.getTermMonths(), amountKey(request.getRate()));
+    }
+
+    // 100 и 100.00 — одна и та же сумма, но BigDecimal.equals их различает.
+    private static BigDecimal amountKey(BigDecimal amount) {
+        return amount == null ? null : amount.stripTrailingZeros();
+    }
 }
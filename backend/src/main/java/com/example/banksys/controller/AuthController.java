@@ -3,9 +3,9 @@ import com.example.banksys.dto.EmployeeDto;
 import com.example.banksys.dto.LoginRequest;
 import com.example.banksys.dto.LoginResponse;
 import com.example.banksys.mapper.EmployeeMapper;
-import com.example.banksys.model.Employee;
-import com.example.banksys.repository.EmployeeRepository;
 import com.example.banksys.service.AuthTokenService;
+import com.example.banksys.service.CachedEmployee;
+import com.example.banksys.service.EmployeeCache;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,12 +17,12 @@ import java.util.Optional;
 @CrossOrigin(origins = "*") // на время разработки
 public class AuthController {
 
-    private final EmployeeRepository employeeRepository;
+    private final EmployeeCache employeeCache;
     private final AuthTokenService authTokenService;
 
-    public AuthController(EmployeeRepository employeeRepository,
+    public AuthController(EmployeeCache employeeCache,
                           AuthTokenService authTokenService) {
-        this.employeeRepository = employeeRepository;
+        this.employeeCache = employeeCache;
         this.authTokenService = authTokenService;
     }
 
@@ -33,20 +33,20 @@ public class AuthController {
                     .body("username and password are required");
         }
 
-        Optional<Employee> optionalEmployee =
-                employeeRepository.findByUsername(request.getUsername());
+        Optional<CachedEmployee> optionalEmployee =
+                employeeCache.findByUsername(request.getUsername());
 
         if (optionalEmployee.isEmpty()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("invalid credentials");
         }
 
-        Employee employee = optionalEmployee.get();
+        CachedEmployee employee = optionalEmployee.get();
 
         if (!employee.getPassword().equals(request.getPassword()) || !employee.isActive()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("invalid credentials");
         }
 
-        String token = authTokenService.generateToken(employee.getId());
+        String token = authTokenService.generateToken(employee);
         EmployeeDto dto = EmployeeMapper.toDto(employee);
 
         LoginResponse response = new LoginResponse(token, dto);
@@ -1,31 +1,42 @@
 package com.example.banksys.controller;
 
 import com.example.banksys.dto.EmployeeDto;
+import com.example.banksys.dto.EmployeePage;
 import com.example.banksys.mapper.EmployeeMapper;
-import com.example.banksys.model.Employee;
-import com.example.banksys.repository.EmployeeRepository;
 import com.example.banksys.service.AuthTokenService;
+import com.example.banksys.service.CachedEmployee;
+import com.example.banksys.service.EmployeeCache;
+import com.example.banksys.service.EmployeeDirectoryService;
+import com.example.banksys.service.TokenClaims;
 //import org.springframework.util.CollectionUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.util.Optional;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/employees")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = "X-Next-Cursor")
 public class EmployeeController {
 
-    private final EmployeeRepository employeeRepository;
     private final AuthTokenService authTokenService;
+    private final EmployeeCache employeeCache;
+    private final EmployeeDirectoryService employeeDirectory;
+    private final JsonMapper jsonMapper;
 
-    public EmployeeController(EmployeeRepository employeeRepository,
-                              AuthTokenService authTokenService) {
-        this.employeeRepository = employeeRepository;
+    public EmployeeController(AuthTokenService authTokenService,
+                              EmployeeCache employeeCache,
+                              EmployeeDirectoryService employeeDirectory,
+                              JsonMapper jsonMapper) {
         this.authTokenService = authTokenService;
+        this.employeeCache = employeeCache;
+        this.employeeDirectory = employeeDirectory;
+        this.jsonMapper = jsonMapper;
     }
 
     @GetMapping("/me")
@@ -35,26 +46,50 @@ public class EmployeeController {
         }
 
         String token = authHeader.substring("Bearer ".length()).trim();
-        Long employeeId = authTokenService.parseEmployeeId(token);
+        TokenClaims claims = authTokenService.verify(token);
 
-        if (employeeId == null) {
+        if (claims == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
         }
 
-        Optional<Employee> optionalEmployee = employeeRepository.findById(employeeId);
-        if (optionalEmployee.isEmpty()) {
+        // Подписанный токен не отзывается, поэтому удалённый или отключённый сотрудник
+        // отсекается здесь. Профиль берётся из кэша сотрудников: при попадании без SQL.
+        Optional<CachedEmployee> employee = employeeCache.findById(claims.getEmployeeId());
+        if (employee.isEmpty() || !employee.get().isActive()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not found");
         }
 
-        EmployeeDto dto = EmployeeMapper.toDto(optionalEmployee.get());
+        EmployeeDto dto = EmployeeMapper.toDto(employee.get());
         return ResponseEntity.ok(dto);
     }
 
+    /**
+     * Без параметров — все сотрудники, JSON пишется в ответ потоком по мере чтения из БД.
+     * С {@code limit}/{@code after} — страница по id, курсор следующей в X-Next-Cursor.
+     */
     @GetMapping("/users")
-    public List<EmployeeDto> listUsers() {
-        return employeeRepository.findAll()
-                .stream()
-                .map(EmployeeMapper::toDto)
-                .collect(Collectors.toList());
+    public ResponseEntity<?> listUsers(@RequestParam(name = "after", required = false) Long after,
+                                       @RequestParam(name = "limit", required = false) Integer limit) {
+        if (after == null && limit == null) {
+            StreamingResponseBody body = out -> {
+                try (JsonGenerator generator = jsonMapper.createGenerator(out)) {
+                    generator.writeStartArray();
+                    employeeDirectory.forEach(dto -> jsonMapper.writeValue(generator, dto));
+                    generator.writeEndArray();
+                }
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+
+        try {
+            EmployeePage page = employeeDirectory.page(after, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header("X-Next-Cursor", page.getNextCursor().toString());
+            }
+            return response.body(page.getItems());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 }
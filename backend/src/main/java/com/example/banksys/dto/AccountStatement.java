@@ -0,0 +1,85 @@
+package com.example.banksys.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Выписка по счёту за период {@code [from, to]}: итоги за весь период и по дням.
+ * Дни без операций в {@code days} не попадают.
+ */
+public class AccountStatement {
+
+    private final Long accountId;
+    private final String number;
+    private final String currency;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final BigDecimal credited;
+    private final BigDecimal debited;
+    private final BigDecimal loans;
+    private final long operations;
+    private final List<StatementDay> days;
+
+    public AccountStatement(Long accountId,
+                            String number,
+                            String currency,
+                            LocalDate from,
+                            LocalDate to,
+                            BigDecimal credited,
+                            BigDecimal debited,
+                            BigDecimal loans,
+                            long operations,
+                            List<StatementDay> days) {
+        this.accountId = accountId;
+        this.number = number;
+        this.currency = currency;
+        this.from = from;
+        this.to = to;
+        this.credited = credited;
+        this.debited = debited;
+        this.loans = loans;
+        this.operations = operations;
+        this.days = days;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public BigDecimal getCredited() {
+        return credited;
+    }
+
+    public BigDecimal getDebited() {
+        return debited;
+    }
+
+    public BigDecimal getLoans() {
+        return loans;
+    }
+
+    public long getOperations() {
+        return operations;
+    }
+
+    public List<StatementDay> getDays() {
+        return days;
+    }
+}
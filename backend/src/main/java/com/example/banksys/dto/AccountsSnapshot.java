@@ -0,0 +1,34 @@
+package com.example.banksys.dto;
+
+import java.util.List;
+
+/**
+ * Неизменяемый отсортированный по id список счетов на момент версии {@code version}.
+ * Один и тот же экземпляр отдаётся всем запросам, пока счета не изменятся,
+ * поэтому список и DTO в нём менять нельзя.
+ */
+public class AccountsSnapshot {
+
+    private final long version;
+    private final String etag;
+    private final List<AccountDto> accounts;
+
+    public AccountsSnapshot(long version, String etag, List<AccountDto> accounts) {
+        this.version = version;
+        this.etag = etag;
+        this.accounts = List.copyOf(accounts);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /** Сильный ETag (в кавычках), уникальный в пределах запуска приложения. */
+    public String getEtag() {
+        return etag;
+    }
+
+    public List<AccountDto> getAccounts() {
+        return accounts;
+    }
+}
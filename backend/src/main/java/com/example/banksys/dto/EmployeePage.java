@@ -0,0 +1,26 @@
+package com.example.banksys.dto;
+
+import java.util.List;
+
+public class EmployeePage {
+
+    private List<EmployeeDto> items;
+    private Long nextCursor;
+
+    public EmployeePage() {
+    }
+
+    public EmployeePage(List<EmployeeDto> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<EmployeeDto> getItems() {
+        return items;
+    }
+
+    /** id последнего сотрудника страницы для параметра {@code after}; null — страниц больше нет. */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.banksys.dto;
+
+/**
+ * Строка списка сотрудников из проекции: роли уже склеены в SQL
+ * через запятую ({@code null}, если ролей нет).
+ */
+public class EmployeeSummary {
+
+    private final Long id;
+    private final String fullName;
+    private final String username;
+    private final String roles;
+
+    public EmployeeSummary(Long id, String fullName, String username, String roles) {
+        this.id = id;
+        this.fullName = fullName;
+        this.username = username;
+        this.roles = roles;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRoles() {
+        return roles;
+    }
+}
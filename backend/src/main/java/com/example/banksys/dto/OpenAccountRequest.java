@@ -0,0 +1,35 @@
+package com.example.banksys.dto;
+
+public class OpenAccountRequest {
+
+    private String username;
+    private String title;
+    private String currency;
+
+    public OpenAccountRequest() {
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.banksys.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Итоги счёта за один день: поступления, списания, выдача кредитов и число операций. */
+public class StatementDay {
+
+    private final LocalDate date;
+    private final BigDecimal credited;
+    private final BigDecimal debited;
+    private final BigDecimal loans;
+    private final long operations;
+
+    public StatementDay(LocalDate date, BigDecimal credited, BigDecimal debited, BigDecimal loans, long operations) {
+        this.date = date;
+        this.credited = credited;
+        this.debited = debited;
+        this.loans = loans;
+        this.operations = operations;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public BigDecimal getCredited() {
+        return credited;
+    }
+
+    public BigDecimal getDebited() {
+        return debited;
+    }
+
+    public BigDecimal getLoans() {
+        return loans;
+    }
+
+    public long getOperations() {
+        return operations;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.banksys.dto;
+
+public class TransferBatchItemResult {
+
+    private int index;
+    private String status;
+    private String message;
+
+    public TransferBatchItemResult() {
+    }
+
+    public TransferBatchItemResult(int index, String status, String message) {
+        this.index = index;
+        this.status = status;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
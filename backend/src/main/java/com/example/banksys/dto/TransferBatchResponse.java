@@ -0,0 +1,47 @@
+package com.example.banksys.dto;
+
+import java.util.List;
+
+public class TransferBatchResponse {
+
+    private String status;
+    private String mode;
+    private int applied;
+    private int rejected;
+    private List<TransferBatchItemResult> results;
+
+    public TransferBatchResponse() {
+    }
+
+    public TransferBatchResponse(String status,
+                                 String mode,
+                                 int applied,
+                                 int rejected,
+                                 List<TransferBatchItemResult> results) {
+        this.status = status;
+        this.mode = mode;
+        this.applied = applied;
+        this.rejected = rejected;
+        this.results = results;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public int getApplied() {
+        return applied;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<TransferBatchItemResult> getResults() {
+        return results;
+    }
+}
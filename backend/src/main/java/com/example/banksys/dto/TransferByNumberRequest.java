@@ -0,0 +1,46 @@
+package com.example.banksys.dto;
+
+import java.math.BigDecimal;
+
+public class TransferByNumberRequest {
+
+    private String fromNumber;
+    private String toNumber;
+    private BigDecimal amount;
+    private String description;
+
+    public TransferByNumberRequest() {
+    }
+
+    public String getFromNumber() {
+        return fromNumber;
+    }
+
+    public void setFromNumber(String fromNumber) {
+        this.fromNumber = fromNumber;
+    }
+
+    public String getToNumber() {
+        return toNumber;
+    }
+
+    public void setToNumber(String toNumber) {
+        this.toNumber = toNumber;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
@@ -8,6 +8,7 @@ public class TransferByUserRequest {
     private String toUsername;
     private BigDecimal amount;
     private String description;
+    private String currency;
 
     public TransferByUserRequest() {
     }
@@ -43,4 +44,13 @@ public class TransferByUserRequest {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    /** Валюта перевода; если не задана — берётся основной (первый) счёт отправителя. */
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
 }
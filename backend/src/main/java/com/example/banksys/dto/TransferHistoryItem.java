@@ -5,8 +5,11 @@ import java.time.LocalDateTime;
 
 public class TransferHistoryItem {
 
+    private Long id;
     private String fromUsername;
+    private String fromAccountNumber;
     private String toUsername;
+    private String toAccountNumber;
     private BigDecimal amount;
     private String currency;
     private String description;
@@ -16,27 +19,48 @@ public class TransferHistoryItem {
     }
 
     public TransferHistoryItem(String fromUsername,
+                               String fromAccountNumber,
                                String toUsername,
+                               String toAccountNumber,
                                BigDecimal amount,
                                String currency,
                                String description,
                                LocalDateTime createdAt) {
         this.fromUsername = fromUsername;
+        this.fromAccountNumber = fromAccountNumber;
         this.toUsername = toUsername;
+        this.toAccountNumber = toAccountNumber;
         this.amount = amount;
         this.currency = currency;
         this.description = description;
         this.createdAt = createdAt;
     }
 
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getFromUsername() {
         return fromUsername;
     }
 
+    /** Номер счёта отправителя; null у кредита (отправитель — банк). */
+    public String getFromAccountNumber() {
+        return fromAccountNumber;
+    }
+
     public String getToUsername() {
         return toUsername;
     }
 
+    public String getToAccountNumber() {
+        return toAccountNumber;
+    }
+
     public BigDecimal getAmount() {
         return amount;
     }
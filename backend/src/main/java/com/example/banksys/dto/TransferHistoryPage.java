@@ -0,0 +1,33 @@
+package com.example.banksys.dto;
+
+import java.util.List;
+
+public class TransferHistoryPage {
+
+    private List<TransferHistoryItem> items;
+    private Long nextCursor;
+    private Long prevCursor;
+
+    public TransferHistoryPage() {
+    }
+
+    public TransferHistoryPage(List<TransferHistoryItem> items, Long nextCursor, Long prevCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.prevCursor = prevCursor;
+    }
+
+    public List<TransferHistoryItem> getItems() {
+        return items;
+    }
+
+    /** Курсор для запроса более старых записей (before), null — старее нет. */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    /** Курсор для запроса более новых записей (after). */
+    public Long getPrevCursor() {
+        return prevCursor;
+    }
+}
@@ -0,0 +1,568 @@
+package com.example.banksys.journal;
+
+import com.example.banksys.metrics.BankMetrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only журнал операций со счетами в memory-mapped файлах-сегментах.
+ * <p>
+ * Запись кадра: {@code [int длина][тело][int crc32c тела]}, нулевая длина — конец данных.
+ * Позиция в журнале логическая и сквозная: сегмент называется по позиции своего
+ * первого байта. Запись в буфер идёт под короткой блокировкой, а fsync делает
+ * отдельный поток пачкой для всех ожидающих (group commit).
+ * <p>
+ * Периодически закрытые сегменты сворачиваются в снимок ({@link JournalSnapshotter})
+ * и удаляются, так что время восстановления не растёт вместе с историей. Снимок
+ * хранит только счета, поэтому история и выписки после рестарта восстанавливаются
+ * лишь из хвоста журнала после снимка.
+ */
+@Component
+public class AccountJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountJournal.class);
+
+    static final byte OPEN = 1;
+    static final byte TRANSFER = 2;
+    static final byte LOAN = 3;
+    static final byte BATCH = 4;
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final int FRAME_OVERHEAD = Integer.BYTES * 2;
+
+    private final boolean enabled;
+    private final boolean sync;
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+    private final long snapshotIntervalMs;
+    private final JournalSnapshotter snapshotter;
+    private final Timer appendLockWait;
+    private final Timer durableWait;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushRequested = flushLock.newCondition();
+    private final Condition flushed = flushLock.newCondition();
+
+    private Segment current;
+    private volatile long currentBase;
+    private volatile long written;
+    private volatile long durable;
+    private volatile boolean running;
+    private Thread flusher;
+    private ScheduledExecutorService snapshots;
+
+    public AccountJournal(@Value("${banksys.journal.enabled:false}") boolean enabled,
+                          @Value("${banksys.journal.dir:data/journal}") String directory,
+                          @Value("${banksys.journal.segment-size:67108864}") int segmentSize,
+                          @Value("${banksys.journal.flush-interval-ms:2}") long flushIntervalMs,
+                          @Value("${banksys.journal.sync:true}") boolean sync,
+                          @Value("${banksys.journal.snapshot-interval-ms:60000}") long snapshotIntervalMs,
+                          BankMetrics metrics) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        this.sync = sync;
+        this.snapshotIntervalMs = snapshotIntervalMs;
+        this.snapshotter = new JournalSnapshotter(this.directory);
+        this.appendLockWait = metrics.lockWait("journal.append");
+        this.durableWait = metrics.lockWait("journal.fsync");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Загружает последний снимок, проигрывает сегменты после него и открывает
+     * журнал на дозапись сразу за последней целой записью.
+     * Возвращает число восстановленных записей (снимок считается одной записью).
+     */
+    public long replay(JournalVisitor visitor) {
+        if (!enabled) {
+            return 0;
+        }
+        appendLock.lock();
+        try {
+            Files.createDirectories(directory);
+            long records = 0;
+            long from = snapshotter.load(visitor);
+            if (from > 0) {
+                records++;
+            }
+            long end = from;
+            Path last = null;
+            for (Path path : listSegments()) {
+                long base = baseOf(path);
+                if (base < from) {
+                    // Сегмент уже покрыт снимком, но не успел удалиться до остановки.
+                    Files.deleteIfExists(path);
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    int offset = 0;
+                    while (true) {
+                        int next = readFrame(buffer, offset, visitor);
+                        if (next < 0) {
+                            break;
+                        }
+                        offset = next;
+                        records++;
+                    }
+                    end = base + offset;
+                    last = path;
+                }
+            }
+            current = last == null ? openSegment(from, 0) : openSegment(baseOf(last), (int) (end - baseOf(last)));
+            currentBase = current.base;
+            written = end;
+            durable = end;
+            startFlusher();
+            startSnapshots();
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось восстановить журнал из " + directory, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long appendAccountOpened(long accountId,
+                                    String ownerUsername,
+                                    String title,
+                                    String number,
+                                    String currency,
+                                    long balance,
+                                    long loanDebt) {
+        if (!enabled) {
+            return 0;
+        }
+        byte[] owner = bytes(ownerUsername);
+        byte[] titleBytes = bytes(title);
+        byte[] numberBytes = bytes(number);
+        byte[] currencyBytes = bytes(currency);
+        int size = 1 + Long.BYTES * 3 + stringSize(owner) + stringSize(titleBytes)
+                + stringSize(numberBytes) + stringSize(currencyBytes);
+        lockForAppend();
+        try {
+            ByteBuffer buffer = begin(size);
+            buffer.put(OPEN).putLong(accountId).putLong(balance).putLong(loanDebt);
+            putString(buffer, owner);
+            putString(buffer, titleBytes);
+            putString(buffer, numberBytes);
+            putString(buffer, currencyBytes);
+            return commit(size);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long appendTransfer(long fromAccountId, long toAccountId, long amount, long createdAtMillis, String description) {
+        if (!enabled) {
+            return 0;
+        }
+        byte[] descriptionBytes = bytes(description);
+        int size = 1 + Long.BYTES * 4 + stringSize(descriptionBytes);
+        lockForAppend();
+        try {
+            ByteBuffer buffer = begin(size);
+            buffer.put(TRANSFER).putLong(fromAccountId).putLong(toAccountId).putLong(amount).putLong(createdAtMillis);
+            putString(buffer, descriptionBytes);
+            return commit(size);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Пишет пакет переводов одним кадром: при восстановлении он либо проигрывается
+     * целиком, либо (оборванный, с неверной crc) не проигрывается вовсе.
+     */
+    public long appendTransferBatch(long[] fromAccountIds,
+                                    long[] toAccountIds,
+                                    long[] amounts,
+                                    long createdAtMillis,
+                                    String[] descriptions) {
+        if (!enabled) {
+            return 0;
+        }
+        byte[][] descriptionBytes = new byte[descriptions.length][];
+        int size = 1 + Integer.BYTES + Long.BYTES;
+        for (int i = 0; i < amounts.length; i++) {
+            descriptionBytes[i] = bytes(descriptions[i]);
+            size += Long.BYTES * 3 + stringSize(descriptionBytes[i]);
+        }
+        lockForAppend();
+        try {
+            ByteBuffer buffer = begin(size);
+            buffer.put(BATCH).putInt(amounts.length).putLong(createdAtMillis);
+            for (int i = 0; i < amounts.length; i++) {
+                buffer.putLong(fromAccountIds[i]).putLong(toAccountIds[i]).putLong(amounts[i]);
+                putString(buffer, descriptionBytes[i]);
+            }
+            return commit(size);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long appendLoan(long accountId, long amount, long totalToRepay, long createdAtMillis) {
+        if (!enabled) {
+            return 0;
+        }
+        int size = 1 + Long.BYTES * 4;
+        lockForAppend();
+        try {
+            ByteBuffer buffer = begin(size);
+            buffer.put(LOAN).putLong(accountId).putLong(amount).putLong(totalToRepay).putLong(createdAtMillis);
+            return commit(size);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Ждёт, пока запись до позиции {@code position} будет сброшена на диск.
+     * Несколько ожидающих обслуживаются одним fsync.
+     */
+    public void awaitDurable(long position) {
+        if (!enabled || !sync || durable >= position) {
+            return;
+        }
+        long start = System.nanoTime();
+        flushLock.lock();
+        try {
+            flushRequested.signal();
+            while (durable < position && running) {
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        durableWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /** Берёт блокировку дозаписи; время ожидания пишется только при конфликте. */
+    private void lockForAppend() {
+        if (appendLock.tryLock()) {
+            return;
+        }
+        long start = System.nanoTime();
+        appendLock.lock();
+        appendLockWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Сворачивает все закрытые сегменты в новый снимок и удаляет их.
+     * Текущий сегмент не трогается, поэтому переводы не останавливаются.
+     */
+    public boolean snapshot() {
+        if (!enabled || current == null) {
+            return false;
+        }
+        long upTo = currentBase;
+        try {
+            List<Path> closed = new ArrayList<>();
+            for (Path path : listSegments()) {
+                long base = baseOf(path);
+                if (base >= snapshotter.position() && base < upTo) {
+                    closed.add(path);
+                }
+            }
+            return snapshotter.snapshot(closed, upTo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать снимок журнала", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled || flusher == null) {
+            return;
+        }
+        if (snapshots != null) {
+            snapshots.shutdown();
+            try {
+                snapshots.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushLock.lock();
+        try {
+            running = false;
+            flushRequested.signal();
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appendLock.lock();
+        try {
+            current.buffer.force();
+            durable = written;
+            current.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private ByteBuffer begin(int size) {
+        if (current == null) {
+            throw new IllegalStateException("Журнал не открыт: сначала нужно выполнить replay");
+        }
+        int frame = size + FRAME_OVERHEAD;
+        if (frame + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("Запись журнала слишком большая: " + frame + " байт");
+        }
+        // Последние 4 байта сегмента всегда остаются под нулевой маркер конца.
+        if (current.offset + frame + Integer.BYTES > segmentSize) {
+            roll();
+        }
+        ByteBuffer buffer = current.buffer;
+        buffer.position(current.offset);
+        buffer.putInt(size);
+        return buffer;
+    }
+
+    private long commit(int size) {
+        Segment segment = current;
+        int bodyStart = segment.offset + Integer.BYTES;
+        CRC32C crc = new CRC32C();
+        crc.update(segment.buffer.slice(bodyStart, size));
+        segment.buffer.putInt(bodyStart + size, (int) crc.getValue());
+        segment.offset = bodyStart + size + Integer.BYTES;
+        long end = segment.base + segment.offset;
+        written = end;
+        return end;
+    }
+
+    private void roll() {
+        try {
+            Segment previous = current;
+            previous.buffer.force();
+            current = openSegment(previous.base + previous.offset, 0);
+            currentBase = current.base;
+            previous.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть новый сегмент журнала", e);
+        }
+    }
+
+    private Segment openSegment(long base, int offset) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, base, SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), segmentSize);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        // Хвост после последней целой записи мог остаться от оборванной записи — затираем маркер.
+        if (offset + Integer.BYTES <= size) {
+            buffer.putInt(offset, 0);
+        }
+        return new Segment(base, channel, buffer, offset);
+    }
+
+    private void startFlusher() {
+        if (flusher != null) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "account-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private void startSnapshots() {
+        if (snapshots != null || snapshotIntervalMs <= 0) {
+            return;
+        }
+        snapshots = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "account-journal-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshots.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (RuntimeException e) {
+                log.error("Снимок журнала не записан", e);
+            }
+        }, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void flushLoop() {
+        while (running) {
+            flushLock.lock();
+            try {
+                if (written == durable) {
+                    flushRequested.awaitNanos(flushIntervalNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                flushLock.unlock();
+            }
+
+            long target = written;
+            if (target == durable) {
+                continue;
+            }
+            Segment segment;
+            appendLock.lock();
+            try {
+                segment = current;
+            } finally {
+                appendLock.unlock();
+            }
+            // Сегменты до текущего сбрасываются при переключении, так что достаточно текущего.
+            segment.buffer.force();
+
+            flushLock.lock();
+            try {
+                durable = target;
+                flushed.signalAll();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).forEach(segments::add);
+        }
+        segments.sort((a, b) -> Long.compare(baseOf(a), baseOf(b)));
+        return segments;
+    }
+
+    private static long baseOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Читает один кадр и передаёт его visitor. Возвращает смещение следующего
+     * кадра или -1, если дальше нет целых записей (конец данных или оборванный хвост).
+     */
+    static int readFrame(ByteBuffer buffer, int offset, JournalVisitor visitor) {
+        if (offset + Integer.BYTES > buffer.limit()) {
+            return -1;
+        }
+        int size = buffer.getInt(offset);
+        int bodyStart = offset + Integer.BYTES;
+        if (size <= 0 || bodyStart + size + Integer.BYTES > buffer.limit()) {
+            return -1;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(bodyStart, size));
+        if ((int) crc.getValue() != buffer.getInt(bodyStart + size)) {
+            return -1;
+        }
+        ByteBuffer body = buffer.slice(bodyStart, size);
+        byte type = body.get();
+        switch (type) {
+            case OPEN -> {
+                long accountId = body.getLong();
+                long balance = body.getLong();
+                long loanDebt = body.getLong();
+                String owner = getString(body);
+                String title = getString(body);
+                String number = getString(body);
+                String currency = getString(body);
+                visitor.onAccountOpened(accountId, owner, title, number, currency, balance, loanDebt);
+            }
+            case TRANSFER -> visitor.onTransfer(body.getLong(), body.getLong(), body.getLong(), body.getLong(), getString(body));
+            case LOAN -> visitor.onLoan(body.getLong(), body.getLong(), body.getLong(), body.getLong());
+            case BATCH -> {
+                int count = body.getInt();
+                long createdAtMillis = body.getLong();
+                for (int i = 0; i < count; i++) {
+                    visitor.onTransfer(body.getLong(), body.getLong(), body.getLong(), createdAtMillis, getString(body));
+                }
+            }
+            default -> {
+                return -1;
+            }
+        }
+        return bodyStart + size + Integer.BYTES;
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+        private final long base;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int offset;
+
+        private Segment(long base, FileChannel channel, MappedByteBuffer buffer, int offset) {
+            this.base = base;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.banksys.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Снимки состояния счетов для быстрого рестарта.
+ * <p>
+ * Снимок строится не из живых счетов, а из теневой копии, которая в фоне
+ * проигрывает закрытые сегменты журнала. Поэтому он всегда точно соответствует
+ * границе сегмента и не требует останавливать переводы. После записи снимка
+ * покрытые им сегменты удаляются, и при старте проигрывается только хвост.
+ * <p>
+ * В снимок попадают только счета (балансы, долги, следующий id), отдельные
+ * операции — нет: переводы и кредиты, свёрнутые в снимок, после рестарта не
+ * возвращаются в историю и дневные итоги выписок.
+ */
+class JournalSnapshotter implements JournalVisitor {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalSnapshotter.class);
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int MAGIC = 0x42534E50;
+    private static final int VERSION = 1;
+
+    private final Path directory;
+    private final Map<Long, ShadowAccount> accounts = new LinkedHashMap<>();
+    private long idSequence = 1;
+    private long position;
+
+    JournalSnapshotter(Path directory) {
+        this.directory = directory;
+    }
+
+    /** Позиция журнала, которую покрывает загруженный или последний записанный снимок. */
+    long position() {
+        return position;
+    }
+
+    /**
+     * Загружает последний целый снимок в теневую копию и передаёт его счета visitor.
+     * Возвращает позицию журнала, с которой нужно продолжить проигрывание.
+     */
+    long load(JournalVisitor visitor) throws IOException {
+        List<Path> snapshots = listSnapshots();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            if (read(snapshots.get(i))) {
+                for (ShadowAccount account : accounts.values()) {
+                    visitor.onAccountOpened(account.id, account.ownerUsername, account.title, account.number,
+                            account.currency, account.balance, account.loanDebt);
+                }
+                visitor.onIdSequence(idSequence);
+                return position;
+            }
+        }
+        accounts.clear();
+        idSequence = 1;
+        position = 0;
+        return 0;
+    }
+
+    /**
+     * Доигрывает в теневую копию закрытые сегменты до {@code upTo}, пишет снимок
+     * и удаляет покрытые им сегменты и старые снимки. Возвращает true, если снимок записан.
+     */
+    boolean snapshot(List<Path> closedSegments, long upTo) throws IOException {
+        if (upTo <= position) {
+            return false;
+        }
+        for (Path segment : closedSegments) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                int offset = 0;
+                while (offset >= 0) {
+                    offset = AccountJournal.readFrame(buffer, offset, this);
+                }
+            }
+        }
+        position = upTo;
+        write();
+        for (Path segment : closedSegments) {
+            Files.deleteIfExists(segment);
+        }
+        for (Path old : listSnapshots()) {
+            if (positionOf(old) < position) {
+                Files.deleteIfExists(old);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void onAccountOpened(long accountId,
+                                String ownerUsername,
+                                String title,
+                                String number,
+                                String currency,
+                                long balance,
+                                long loanDebt) {
+        accounts.put(accountId, new ShadowAccount(accountId, ownerUsername, title, number, currency, balance, loanDebt));
+        idSequence = Math.max(idSequence, accountId + 1);
+    }
+
+    @Override
+    public void onTransfer(long fromAccountId, long toAccountId, long amount, long createdAtMillis, String description) {
+        ShadowAccount from = accounts.get(fromAccountId);
+        ShadowAccount to = accounts.get(toAccountId);
+        if (from == null || to == null) {
+            // Перевод без кадра открытия счёта — пропускаем целиком, как и при восстановлении.
+            log.error("Снимок: перевод {} -> {} на {} ссылается на неизвестный счёт, запись пропущена",
+                    fromAccountId, toAccountId, amount);
+            return;
+        }
+        from.balance -= amount;
+        to.balance += amount;
+    }
+
+    @Override
+    public void onLoan(long accountId, long amount, long totalToRepay, long createdAtMillis) {
+        ShadowAccount account = accounts.get(accountId);
+        if (account == null) {
+            log.error("Снимок: кредит на {} ссылается на неизвестный счёт {}, запись пропущена", amount, accountId);
+            return;
+        }
+        account.balance += amount;
+        account.loanDebt += totalToRepay;
+    }
+
+    @Override
+    public void onIdSequence(long nextId) {
+        idSequence = Math.max(idSequence, nextId);
+    }
+
+    private void write() throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, position, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(new CheckedOutputStream(file, crc)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(position);
+            out.writeLong(idSequence);
+            out.writeInt(accounts.size());
+            for (ShadowAccount account : accounts.values()) {
+                out.writeLong(account.id);
+                out.writeLong(account.balance);
+                out.writeLong(account.loanDebt);
+                writeString(out, account.ownerUsername);
+                writeString(out, account.title);
+                writeString(out, account.number);
+                writeString(out, account.currency);
+            }
+            out.flush();
+            // Контрольная сумма пишется мимо CheckedOutputStream, чтобы не входить в саму себя.
+            file.write(intBytes((int) crc.getValue()));
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private boolean read(Path path) throws IOException {
+        long size = Files.size(path);
+        if (size < Integer.BYTES) {
+            return false;
+        }
+        Map<Long, ShadowAccount> loaded = new LinkedHashMap<>();
+        long loadedPosition;
+        long loadedSequence;
+        CRC32C crc = new CRC32C();
+        try (InputStream file = Files.newInputStream(path);
+             CheckedInputStream checked = new CheckedInputStream(
+                     new BufferedInputStream(new BoundedInputStream(file, size - Integer.BYTES)), crc);
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            loadedPosition = in.readLong();
+            loadedSequence = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                long balance = in.readLong();
+                long loanDebt = in.readLong();
+                String owner = readString(in);
+                String title = readString(in);
+                String number = readString(in);
+                String currency = readString(in);
+                loaded.put(id, new ShadowAccount(id, owner, title, number, currency, balance, loanDebt));
+            }
+            if (in.read() != -1) {
+                return false;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        byte[] trailer = new byte[Integer.BYTES];
+        try (InputStream file = Files.newInputStream(path)) {
+            file.skipNBytes(size - Integer.BYTES);
+            file.readNBytes(trailer, 0, Integer.BYTES);
+        }
+        if (toInt(trailer) != (int) crc.getValue()) {
+            return false;
+        }
+        accounts.clear();
+        accounts.putAll(loaded);
+        idSequence = loadedSequence;
+        position = loadedPosition;
+        return true;
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return snapshots;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).forEach(snapshots::add);
+        }
+        snapshots.sort((a, b) -> Long.compare(positionOf(a), positionOf(b)));
+        return snapshots;
+    }
+
+    private static long positionOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static byte[] intBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    private static int toInt(byte[] bytes) {
+        return ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+    }
+
+    private static final class ShadowAccount {
+        private final long id;
+        private final String ownerUsername;
+        private final String title;
+        private final String number;
+        private final String currency;
+        private long balance;
+        private long loanDebt;
+
+        private ShadowAccount(long id,
+                              String ownerUsername,
+                              String title,
+                              String number,
+                              String currency,
+                              long balance,
+                              long loanDebt) {
+            this.id = id;
+            this.ownerUsername = ownerUsername;
+            this.title = title;
+            this.number = number;
+            this.currency = currency;
+            this.balance = balance;
+            this.loanDebt = loanDebt;
+        }
+    }
+
+    /** Ограничивает чтение телом снимка, не заходя в хвостовую контрольную сумму. */
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream delegate;
+        private long remaining;
+
+        private BoundedInputStream(InputStream delegate, long limit) {
+            this.delegate = delegate;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int value = delegate.read();
+            if (value >= 0) {
+                remaining--;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = delegate.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
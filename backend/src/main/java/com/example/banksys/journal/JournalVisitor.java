@@ -0,0 +1,23 @@
+package com.example.banksys.journal;
+
+/**
+ * Получает записи журнала при восстановлении состояния. Суммы — в тиынах.
+ */
+public interface JournalVisitor {
+
+    void onAccountOpened(long accountId,
+                         String ownerUsername,
+                         String title,
+                         String number,
+                         String currency,
+                         long balance,
+                         long loanDebt);
+
+    void onTransfer(long fromAccountId, long toAccountId, long amount, long createdAtMillis, String description);
+
+    void onLoan(long accountId, long amount, long totalToRepay, long createdAtMillis);
+
+    /** Следующий свободный id счёта; приходит из снимка после всех его счетов. */
+    default void onIdSequence(long nextId) {
+    }
+}
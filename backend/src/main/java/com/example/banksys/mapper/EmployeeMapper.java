@@ -1,9 +1,14 @@
 package com.example.banksys.mapper;
 
 import com.example.banksys.dto.EmployeeDto;
+import com.example.banksys.dto.EmployeeSummary;
 import com.example.banksys.model.Employee;
 import com.example.banksys.model.Role;
+import com.example.banksys.service.AuthorizationIndex;
+import com.example.banksys.service.CachedEmployee;
+import com.example.banksys.service.TokenClaims;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,4 +27,35 @@ public class EmployeeMapper {
                 roles
         );
     }
-}
\ No newline at end of file
+
+    public static EmployeeDto toDto(EmployeeSummary summary) {
+        List<String> roles = summary.getRoles() == null
+                ? List.of()
+                : Arrays.asList(summary.getRoles().split(","));
+
+        return new EmployeeDto(
+                summary.getId(),
+                summary.getFullName(),
+                summary.getUsername(),
+                roles
+        );
+    }
+
+    public static EmployeeDto toDto(TokenClaims claims) {
+        return new EmployeeDto(
+                claims.getEmployeeId(),
+                claims.getFullName(),
+                claims.getUsername(),
+                AuthorizationIndex.roleNames(claims.getRoleMask())
+        );
+    }
+
+    public static EmployeeDto toDto(CachedEmployee employee) {
+        return new EmployeeDto(
+                employee.getId(),
+                employee.getFullName(),
+                employee.getUsername(),
+                employee.getRoles()
+        );
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.banksys.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Бизнес-метрики банка поверх Micrometer: счётчики переводов и кредитов
+ * с причиной отказа, gauge-и размеров и таймеры ожидания блокировок.
+ * Задержки HTTP-эндпойнтов снимает сам Spring ({@code http.server.requests}).
+ */
+@Component
+public class BankMetrics {
+
+    public enum Operation {
+        TRANSFER,
+        LOAN
+    }
+
+    public enum Rejection {
+        INVALID,
+        NOT_FOUND,
+        INSUFFICIENT_FUNDS,
+        BLOCKED_ROLE,
+        CONFLICT,
+        BATCH_ABORTED,
+        ERROR;
+
+        private String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Operation, Counter> succeeded = new EnumMap<>(Operation.class);
+    private final Map<Operation, Map<Rejection, Counter>> rejected = new EnumMap<>(Operation.class);
+
+    public BankMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Operation operation : Operation.values()) {
+            String name = operation == Operation.TRANSFER ? "banksys.transfers" : "banksys.loans";
+            succeeded.put(operation, Counter.builder(name)
+                    .tag("outcome", "ok")
+                    .tag("reason", "none")
+                    .register(registry));
+            Map<Rejection, Counter> byReason = new EnumMap<>(Rejection.class);
+            for (Rejection rejection : Rejection.values()) {
+                byReason.put(rejection, Counter.builder(name)
+                        .tag("outcome", "rejected")
+                        .tag("reason", rejection.tag())
+                        .register(registry));
+            }
+            rejected.put(operation, byReason);
+        }
+    }
+
+    public void succeeded(Operation operation) {
+        succeeded.get(operation).increment();
+    }
+
+    public void succeeded(Operation operation, int count) {
+        succeeded.get(operation).increment(count);
+    }
+
+    public void rejected(Operation operation, Rejection rejection) {
+        rejected.get(operation).get(rejection).increment();
+    }
+
+    /**
+     * Таймер ожидания блокировки {@code lock}. Пишутся только случаи, когда
+     * блокировку не удалось взять сразу, поэтому count — число конфликтов.
+     */
+    public Timer lockWait(String lock) {
+        return Timer.builder("banksys.lock.wait")
+                .description("Время ожидания захвата блокировки")
+                .tag("lock", lock)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public Counter counter(String name, String description, String... tags) {
+        return Counter.builder(name).description(description).tags(tags).register(registry);
+    }
+
+    public <T> void gauge(String name, String description, T target, ToDoubleFunction<T> value) {
+        Gauge.builder(name, target, value).description(description).register(registry);
+    }
+}
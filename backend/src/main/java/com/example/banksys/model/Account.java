@@ -0,0 +1,95 @@
+package com.example.banksys.model;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "accounts")
+public class Account {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String title;
+
+    @Column(nullable = false, unique = true, length = 34)
+    private String number;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "owner_username", nullable = false, length = 50)
+    private String ownerUsername;
+
+    @Column(name = "balance_minor", nullable = false)
+    private long balance; // в тиынах
+
+    @Column(name = "loan_debt_minor", nullable = false)
+    private long loanDebt; // в тиынах
+
+    @Version
+    private long version;
+
+    public Account() {
+    }
+
+    public Account(String title, String currency, String ownerUsername, long balance, long loanDebt) {
+        this.title = title;
+        this.currency = currency;
+        this.ownerUsername = ownerUsername;
+        this.balance = balance;
+        this.loanDebt = loanDebt;
+    }
+
+    // getters / setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public void setNumber(String number) {
+        this.number = number;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getOwnerUsername() {
+        return ownerUsername;
+    }
+
+    public long getBalance() {
+        return balance;
+    }
+
+    public void setBalance(long balance) {
+        this.balance = balance;
+    }
+
+    public long getLoanDebt() {
+        return loanDebt;
+    }
+
+    public void setLoanDebt(long loanDebt) {
+        this.loanDebt = loanDebt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.banksys.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Ячейка счётчика изменений счетов. Каждая транзакция, меняющая счета,
+ * увеличивает одну ячейку; сумма по всем ячейкам меняется при любом изменении.
+ */
+@Entity
+@Table(name = "ledger_changes")
+public class LedgerChange {
+
+    @Id
+    private int slot;
+
+    @Column(nullable = false)
+    private long changes;
+
+    public LedgerChange() {
+    }
+
+    // getters
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public long getChanges() {
+        return changes;
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.banksys.model;
 
+import com.example.banksys.service.AuthorizationIndexListener;
+import com.example.banksys.service.EmployeeCacheListener;
 import jakarta.persistence.*;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@EntityListeners({AuthorizationIndexListener.class, EmployeeCacheListener.class})
 @Table(name = "roles")
 public class Role {
 
@@ -0,0 +1,104 @@
+package com.example.banksys.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "transfers", indexes = {
+        @Index(name = "idx_transfers_from_username", columnList = "from_username"),
+        @Index(name = "idx_transfers_to_username", columnList = "to_username")
+})
+public class Transfer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfers_seq")
+    @SequenceGenerator(name = "transfers_seq", sequenceName = "transfers_seq", allocationSize = 100)
+    private Long id;
+
+    @Column(name = "from_account_id")
+    private Long fromAccountId; // null для зачисления кредита банком
+
+    @Column(name = "to_account_id", nullable = false)
+    private Long toAccountId;
+
+    @Column(name = "from_username", nullable = false, length = 50)
+    private String fromUsername;
+
+    @Column(name = "to_username", nullable = false, length = 50)
+    private String toUsername;
+
+    @Column(name = "amount_minor", nullable = false)
+    private long amount; // в тиынах
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    @Column(length = 255)
+    private String description;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public Transfer() {
+    }
+
+    public Transfer(Long fromAccountId,
+                    Long toAccountId,
+                    String fromUsername,
+                    String toUsername,
+                    long amount,
+                    String currency,
+                    String description,
+                    LocalDateTime createdAt) {
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.fromUsername = fromUsername;
+        this.toUsername = toUsername;
+        this.amount = amount;
+        this.currency = currency;
+        this.description = description;
+        this.createdAt = createdAt;
+    }
+
+    // getters / setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public Long getToAccountId() {
+        return toAccountId;
+    }
+
+    public String getFromUsername() {
+        return fromUsername;
+    }
+
+    public String getToUsername() {
+        return toUsername;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.banksys.repository;
+
+import com.example.banksys.model.Account;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AccountRepository extends JpaRepository<Account, Long> {
+
+    List<Account> findAllByOrderByIdAsc();
+
+    Optional<Account> findByNumber(String number);
+
+    List<Account> findAllByOwnerUsernameOrderByIdAsc(String ownerUsername);
+
+    boolean existsByOwnerUsername(String ownerUsername);
+
+}
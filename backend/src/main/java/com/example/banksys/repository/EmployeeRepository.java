@@ -1,11 +1,58 @@
 package com.example.banksys.repository;
 
+import com.example.banksys.dto.EmployeeSummary;
 import com.example.banksys.model.Employee;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
 
     Optional<Employee> findByUsername(String username);
+
+    /** Блокирует строку сотрудника до конца транзакции ({@code select ... for update}). */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from Employee e where e.username = :username")
+    Optional<Employee> lockByUsername(@Param("username") String username);
+
+    @Query("select distinct e from Employee e left join fetch e.roles")
+    List<Employee> findAllWithRoles();
+
+    @Query("select e from Employee e left join fetch e.roles where e.username = :username")
+    Optional<Employee> findByUsernameWithRoles(@Param("username") String username);
+
+    @Query("select e from Employee e left join fetch e.roles where e.id = :id")
+    Optional<Employee> findByIdWithRoles(@Param("id") long id);
+
+    /** Страница сотрудников с id больше {@code afterId} одним запросом, роли агрегируются в SQL. */
+    @Query("""
+            select new com.example.banksys.dto.EmployeeSummary(
+                e.id, e.fullName, e.username, listagg(r.name, ',') within group (order by r.name))
+            from Employee e left join e.roles r
+            where e.id > :afterId
+            group by e.id, e.fullName, e.username
+            order by e.id
+            """)
+    List<EmployeeSummary> findSummariesAfter(@Param("afterId") long afterId, Limit limit);
+
+    /** Все сотрудники тем же запросом, но потоком: требует открытой транзакции. */
+    @Query("""
+            select new com.example.banksys.dto.EmployeeSummary(
+                e.id, e.fullName, e.username, listagg(r.name, ',') within group (order by r.name))
+            from Employee e left join e.roles r
+            group by e.id, e.fullName, e.username
+            order by e.id
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<EmployeeSummary> streamSummaries();
 }
\ No newline at end of file
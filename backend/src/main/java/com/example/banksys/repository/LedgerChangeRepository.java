@@ -0,0 +1,28 @@
+package com.example.banksys.repository;
+
+import com.example.banksys.model.LedgerChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface LedgerChangeRepository extends JpaRepository<LedgerChange, Integer> {
+
+    /** Создаёт недостающие ячейки {@code 0..slots-1}; существующие не трогает. */
+    @Modifying
+    @Query(value = """
+            insert into ledger_changes (slot, changes)
+            select s, 0 from generate_series(0, :slots - 1) s
+            on conflict (slot) do nothing
+            """, nativeQuery = true)
+    void createSlots(@Param("slots") int slots);
+
+    /** Увеличивает ячейку; строка остаётся заблокированной до конца транзакции. */
+    @Modifying
+    @Query("update LedgerChange c set c.changes = c.changes + 1 where c.slot = :slot")
+    int increment(@Param("slot") int slot);
+
+    /** Сумма по ячейкам: чтение нескольких строк, а не таблицы счетов. */
+    @Query("select coalesce(sum(c.changes), 0) from LedgerChange c")
+    long total();
+}
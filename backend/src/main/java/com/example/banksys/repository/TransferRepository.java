@@ -0,0 +1,7 @@
+package com.example.banksys.repository;
+
+import com.example.banksys.model.Transfer;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TransferRepository extends JpaRepository<Transfer, Long> {
+}
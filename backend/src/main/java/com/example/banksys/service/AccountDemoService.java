@@ -1,48 +1,141 @@
 package com.example.banksys.service;
 
 import com.example.banksys.dto.AccountDto;
+import com.example.banksys.dto.AccountStatement;
+import com.example.banksys.dto.AccountsSnapshot;
 import com.example.banksys.dto.LoanRequest;
 import com.example.banksys.dto.LoanResponse;
+import com.example.banksys.dto.OpenAccountRequest;
+import com.example.banksys.dto.StatementDay;
+import com.example.banksys.dto.TransferBatchItemResult;
+import com.example.banksys.dto.TransferBatchResponse;
 import com.example.banksys.dto.TransferRequest;
-import com.example.banksys.dto.TransferResponse;
+import com.example.banksys.dto.TransferByNumberRequest;
 import com.example.banksys.dto.TransferByUserRequest;
+import com.example.banksys.dto.TransferResponse;
 import com.example.banksys.dto.TransferHistoryItem;
+import com.example.banksys.dto.TransferHistoryPage;
+import com.example.banksys.journal.AccountJournal;
+import com.example.banksys.journal.JournalVisitor;
+import com.example.banksys.metrics.BankMetrics;
+import com.example.banksys.metrics.BankMetrics.Operation;
+import com.example.banksys.metrics.BankMetrics.Rejection;
 import com.example.banksys.model.Employee;
+import com.example.banksys.model.Transfer;
 import com.example.banksys.repository.EmployeeRepository;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.time.ZoneId;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class AccountDemoService {
 
+    private static final Logger log = LoggerFactory.getLogger(AccountDemoService.class);
+    private static final long BLOCKED_ROLES = AuthorizationIndex.ROLE_ADMIN
+            | AuthorizationIndex.ROLE_MANAGER
+            | AuthorizationIndex.ROLE_EMPLOYEE;
+    private static final int DEFAULT_HISTORY_PAGE = 50;
+    private static final int MAX_HISTORY_PAGE = 500;
+    private static final int DEFAULT_STATEMENT_DAYS = 30;
+    private static final int MAX_BATCH_SIZE = 10000;
+    private static final String BATCH_ATOMIC = "atomic";
+    private static final String BATCH_BEST_EFFORT = "best-effort";
+    private static final String LOAN_DESCRIPTION = "Кредит: пополнение по кредиту";
+    private static final int ACCOUNT_NUMBER_DIGITS = 18;
+    // Предел одной суммы (1 трлн) и баланса/долга счёта (1 квадриллион). В тиынах оба далеко
+    // от переполнения long, поэтому даже гонка проверок не доведёт счёт до переполнения.
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("1000000000000.00");
+    private static final long MAX_BALANCE_MINOR = 100_000_000_000_000_000L;
+
     private final EmployeeRepository employeeRepository;
-    private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
-    private final Map<String, Long> userAccounts = new ConcurrentHashMap<>();
-    private final List<TransferHistoryItem> history = Collections.synchronizedList(new ArrayList<>());
+    private final AuthorizationIndex authorizationIndex;
+    private final TransferHistoryStore history;
+    private final StatementBook statements;
+    private final AccountJournal journal;
+    private final LedgerPersistenceService ledger;
+    private final TransferHistoryWriter historyWriter;
+    private final BankMetrics metrics;
+    private final LongTable<Account> accounts = new LongTable<>();
+    // Вторичные индексы: логин -> счета владельца в порядке открытия (список заменяется целиком)
+    // и номер счёта -> счёт.
+    private final Map<String, List<Account>> userAccounts = new ConcurrentHashMap<>();
+    private final Map<String, Account> accountsByNumber = new ConcurrentHashMap<>();
     private final AtomicLong idSequence = new AtomicLong(1);
+    // Версия состояния счетов: растёт после каждого изменения. LongAdder, а не AtomicLong,
+    // чтобы переводы по разным счетам не толкались на одном счётчике; сумма только растёт.
+    private final LongAdder accountsVersion = new LongAdder();
+    private final String etagPrefix = Long.toHexString(System.currentTimeMillis());
+    private volatile AccountsSnapshot accountsSnapshot;
+    private final ExecutorService batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // Режим Postgres: когда в следующий раз сверяться с БД и какой счётчик изменений видели последним.
+    private final AtomicLong ledgerRefreshAt = new AtomicLong();
+    private volatile long ledgerChangeCount = -1;
 
-    public AccountDemoService(EmployeeRepository employeeRepository) {
+    public AccountDemoService(EmployeeRepository employeeRepository,
+                              AuthorizationIndex authorizationIndex,
+                              TransferHistoryStore history,
+                              StatementBook statements,
+                              AccountJournal journal,
+                              LedgerPersistenceService ledger,
+                              TransferHistoryWriter historyWriter,
+                              BankMetrics metrics) {
         this.employeeRepository = employeeRepository;
+        this.authorizationIndex = authorizationIndex;
+        this.history = history;
+        this.statements = statements;
+        this.journal = journal;
+        this.ledger = ledger;
+        this.historyWriter = historyWriter;
+        this.metrics = metrics;
+        metrics.gauge("banksys.accounts", "Число открытых счетов", accounts, LongTable::size);
+        metrics.gauge("banksys.history.size", "Записей в общей истории операций", history, TransferHistoryStore::size);
     }
 
     @PostConstruct
     public void seedDemoAccounts() {
         accounts.clear();
         userAccounts.clear();
+        accountsByNumber.clear();
+        authorizationIndex.clearAccounts();
         history.clear();
+        statements.clear();
         idSequence.set(1);
+        accountsChanged();
+
+        // В режиме Postgres счета общие для всех экземпляров и живут в БД, журнал не используется.
+        if (ledger.isEnabled()) {
+            restoreFromLedger();
+            return;
+        }
+
+        // Если журнал уже содержит операции, состояние восстанавливается из него, а не сидируется заново.
+        if (journal.replay(new JournalRecovery()) > 0) {
+            return;
+        }
 
         List<Employee> employees = employeeRepository.findAll();
         if (employees.isEmpty()) {
@@ -57,39 +150,55 @@ public class AccountDemoService {
         }
     }
 
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdown();
+    }
+
     public List<AccountDto> getAccounts() {
-        List<AccountDto> result = new ArrayList<>();
-        accounts.values().stream()
-                .sorted(Comparator.comparing(Account::getId))
-                .forEach(acc -> result.add(toDto(acc)));
-        return result;
+        return getAccountsSnapshot().getAccounts();
+    }
+
+    /**
+     * Отсортированный список счетов с версией. Снимок пересобирается лениво —
+     * только если с прошлой сборки счета менялись, иначе отдаётся тот же объект.
+     * В режиме Postgres изменения других экземпляров подтягиваются не чаще раза
+     * в {@code banksys.ledger.refresh-ms}; свои изменения видны сразу.
+     */
+    public AccountsSnapshot getAccountsSnapshot() {
+        if (ledger.isEnabled()) {
+            refreshFromLedgerIfDue();
+        }
+        // Версия читается до сборки: изменения, попавшие в снимок позже, лишь вызовут лишнюю пересборку.
+        long version = accountsVersion.sum();
+        AccountsSnapshot snapshot = accountsSnapshot;
+        if (snapshot != null && snapshot.getVersion() == version) {
+            return snapshot;
+        }
+        // Таблица обходится по возрастанию id, сортировать не нужно.
+        List<AccountDto> result = new ArrayList<>(accounts.size());
+        accounts.forEach(acc -> result.add(toDto(acc)));
+        snapshot = new AccountsSnapshot(version, "\"" + etagPrefix + "-" + version + "\"", result);
+        accountsSnapshot = snapshot;
+        return snapshot;
     }
 
-    public synchronized TransferResponse transfer(TransferRequest request) {
+    public TransferResponse transfer(TransferRequest request) {
+        return counted(Operation.TRANSFER, () -> executeTransfer(request));
+    }
+
+    private TransferResponse executeTransfer(TransferRequest request) {
         validateTransfer(request);
         Account from = requireAccount(request.getFromAccountId());
         Account to = requireAccount(request.getToAccountId());
 
-        if (isBlockedRole(from.getOwnerUsername())) {
-            throw new IllegalStateException("Переводы недоступны для этой роли");
-        }
-
-        BigDecimal amount = normalize(request.getAmount());
-        if (from.getBalance().compareTo(amount) < 0) {
-            throw new IllegalStateException("Недостаточно средств на счёте отправителя");
+        if (isBlockedRole(from)) {
+            throw new OperationBlockedException("Переводы недоступны для этой роли");
         }
+        requireSameCurrency(from, to);
 
-        from.setBalance(from.getBalance().subtract(amount));
-        to.setBalance(to.getBalance().add(amount));
-
-        history.add(new TransferHistoryItem(
-                from.getOwnerUsername(),
-                to.getOwnerUsername(),
-                amount,
-                from.getCurrency(),
-                request.getDescription(),
-                LocalDateTime.now()
-        ));
+        long amount = toMinor(request.getAmount());
+        journal.awaitDurable(moveFunds(from, to, amount, request.getDescription()));
 
         return new TransferResponse(
                 "ok",
@@ -99,29 +208,206 @@ public class AccountDemoService {
         );
     }
 
+    /**
+     * Пакет переводов за один проход: все запросы проверяются и счета
+     * разрешаются один раз. В режиме atomic пакет проводится взаимозачётом —
+     * с каждого счёта списывается только его итоговое нетто, и либо проходит
+     * весь пакет, либо ничего. В режиме best-effort переводы разных
+     * отправителей идут параллельно, а переводы одного отправителя — по порядку.
+     */
+    public TransferBatchResponse transferBatch(List<TransferRequest> requests, String mode) {
+        boolean atomic;
+        if (mode == null || mode.isBlank() || BATCH_BEST_EFFORT.equalsIgnoreCase(mode)) {
+            atomic = false;
+        } else if (BATCH_ATOMIC.equalsIgnoreCase(mode)) {
+            atomic = true;
+        } else {
+            throw new IllegalArgumentException("Неизвестный режим пакета: " + mode);
+        }
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Пакет переводов пуст");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("В пакете не больше " + MAX_BATCH_SIZE + " переводов");
+        }
+
+        int size = requests.size();
+        Account[] fromAccounts = new Account[size];
+        Account[] toAccounts = new Account[size];
+        long[] amounts = new long[size];
+        TransferBatchItemResult[] results = new TransferBatchItemResult[size];
+        int invalid = 0;
+        for (int i = 0; i < size; i++) {
+            TransferRequest request = requests.get(i);
+            try {
+                validateTransfer(request);
+                Account from = requireAccount(request.getFromAccountId());
+                Account to = requireAccount(request.getToAccountId());
+                if (isBlockedRole(from)) {
+                    throw new OperationBlockedException("Переводы недоступны для этой роли");
+                }
+                requireSameCurrency(from, to);
+                fromAccounts[i] = from;
+                toAccounts[i] = to;
+                amounts[i] = toMinor(request.getAmount());
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                results[i] = new TransferBatchItemResult(i, "rejected", e.getMessage());
+                metrics.rejected(Operation.TRANSFER, rejectionOf(e));
+                invalid++;
+            }
+        }
+
+        if (atomic) {
+            if (invalid > 0) {
+                return rejectBatch(results, "Пакет отклонён: есть некорректные переводы", Rejection.BATCH_ABORTED);
+            }
+            long position = 0;
+            try {
+                if (ledger.isEnabled()) {
+                    settleInLedger(fromAccounts, toAccounts, amounts, requests);
+                } else {
+                    position = settleAtomically(fromAccounts, toAccounts, amounts, requests);
+                }
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                return rejectBatch(results, e.getMessage(), rejectionOf(e));
+            }
+            for (int i = 0; i < size; i++) {
+                results[i] = new TransferBatchItemResult(i, "ok", "Перевод выполнен");
+            }
+            journal.awaitDurable(position);
+            metrics.succeeded(Operation.TRANSFER, size);
+            return new TransferBatchResponse("ok", BATCH_ATOMIC, size, 0, List.of(results));
+        }
+
+        Map<Account, List<Integer>> bySender = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (results[i] == null) {
+                bySender.computeIfAbsent(fromAccounts[i], k -> new ArrayList<>()).add(i);
+            }
+        }
+        // Отправители — на виртуальных потоках: moveFunds блокируется на записи в журнал,
+        // и общий ForkJoinPool для этого не годится.
+        AtomicLong lastPosition = new AtomicLong();
+        List<Callable<Void>> tasks = new ArrayList<>(bySender.size());
+        for (List<Integer> indexes : bySender.values()) {
+            tasks.add(() -> {
+                for (int i : indexes) {
+                    results[i] = transferBatchItem(i, fromAccounts[i], toAccounts[i], amounts[i],
+                            requests.get(i).getDescription(), lastPosition);
+                }
+                return null;
+            });
+        }
+        try {
+            batchExecutor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (int i = 0; i < size; i++) {
+            if (results[i] == null) {
+                results[i] = new TransferBatchItemResult(i, "rejected", "Пакет прерван до выполнения перевода");
+                metrics.rejected(Operation.TRANSFER, Rejection.ERROR);
+            }
+        }
+        // Один fsync на весь пакет.
+        journal.awaitDurable(lastPosition.get());
+
+        int applied = 0;
+        for (TransferBatchItemResult result : results) {
+            if ("ok".equals(result.getStatus())) {
+                applied++;
+            }
+        }
+        String status = applied == size ? "ok" : (applied == 0 ? "rejected" : "partial");
+        return new TransferBatchResponse(status, BATCH_BEST_EFFORT, applied, size - applied, List.of(results));
+    }
+
+    /** Один перевод пакета best-effort: любая ошибка становится результатом этого перевода. */
+    private TransferBatchItemResult transferBatchItem(int index,
+                                                      Account from,
+                                                      Account to,
+                                                      long amount,
+                                                      String description,
+                                                      AtomicLong lastPosition) {
+        try {
+            long position = moveFunds(from, to, amount, description);
+            lastPosition.accumulateAndGet(position, Math::max);
+            metrics.succeeded(Operation.TRANSFER);
+            return new TransferBatchItemResult(index, "ok", "Перевод выполнен");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            metrics.rejected(Operation.TRANSFER, rejectionOf(e));
+            return new TransferBatchItemResult(index, "rejected", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Перевод {} из пакета не выполнен", index, e);
+            metrics.rejected(Operation.TRANSFER, Rejection.ERROR);
+            return new TransferBatchItemResult(index, "rejected", "Внутренняя ошибка, перевод не выполнен");
+        }
+    }
+
+    /**
+     * Перевод по логинам: со счёта отправителя в указанной валюте (или с основного)
+     * на первый счёт получателя в той же валюте.
+     */
     public TransferResponse transferByUser(TransferByUserRequest request) {
-        validateTransferByUser(request);
-        Account from = requireAccountByUsername(request.getFromUsername());
-        Account to = requireAccountByUsername(request.getToUsername());
+        return counted(Operation.TRANSFER, () -> {
+            validateTransferByUser(request);
+            Account from = requireAccountByUsername(request.getFromUsername(), request.getCurrency());
+            Account to = requireAccountByUsername(request.getToUsername(), from.getCurrency());
 
-        if (isBlockedRole(from.getOwnerUsername())) {
-            throw new IllegalStateException("Переводы недоступны для этой роли");
+            TransferRequest converted = new TransferRequest();
+            converted.setFromAccountId(from.getId());
+            converted.setToAccountId(to.getId());
+            converted.setAmount(request.getAmount());
+            converted.setDescription(request.getDescription());
+            return executeTransfer(converted);
+        });
+    }
+
+    public TransferResponse transferByNumber(TransferByNumberRequest request) {
+        return counted(Operation.TRANSFER, () -> {
+            validateTransferByNumber(request);
+            Account from = requireAccountByNumber(request.getFromNumber());
+            Account to = requireAccountByNumber(request.getToNumber());
+
+            TransferRequest converted = new TransferRequest();
+            converted.setFromAccountId(from.getId());
+            converted.setToAccountId(to.getId());
+            converted.setAmount(request.getAmount());
+            converted.setDescription(request.getDescription());
+            return executeTransfer(converted);
+        });
+    }
+
+    /** Открывает пользователю ещё один счёт с нулевым балансом. */
+    public AccountDto openAccount(OpenAccountRequest request) {
+        if (request == null || request.getUsername() == null || request.getUsername().isBlank()) {
+            throw new IllegalArgumentException("Нужно указать владельца счёта");
         }
+        if (authorizationIndex.roleMask(request.getUsername()) == AuthorizationIndex.UNKNOWN) {
+            throw new AccountNotFoundException("Пользователь не найден: " + request.getUsername());
+        }
+        String currency = normalizeCurrency(request.getCurrency());
+        if (currency == null) {
+            throw new IllegalArgumentException("Валюта должна быть трёхбуквенным кодом, например KZT");
+        }
+        String title = request.getTitle() == null || request.getTitle().isBlank()
+                ? "Счёт " + currency
+                : request.getTitle().trim();
+        Account account = addAccount(title, currency, BigDecimal.ZERO, BigDecimal.ZERO, request.getUsername(), true);
+        bindToUser(account);
+        return toDto(account);
+    }
 
-        TransferRequest converted = new TransferRequest();
-        converted.setFromAccountId(from.getId());
-        converted.setToAccountId(to.getId());
-        converted.setAmount(request.getAmount());
-        converted.setDescription(request.getDescription());
-        return transfer(converted);
+    public LoanResponse takeLoan(LoanRequest request) {
+        return counted(Operation.LOAN, () -> executeLoan(request));
     }
 
-    public synchronized LoanResponse takeLoan(LoanRequest request) {
+    private LoanResponse executeLoan(LoanRequest request) {
         validateLoan(request);
         Account account = requireAccount(request.getAccountId());
 
-        if (isBlockedRole(account.getOwnerUsername())) {
-            throw new IllegalStateException("Кредит недоступен для этой роли");
+        if (isBlockedRole(account)) {
+            throw new OperationBlockedException("Кредит недоступен для этой роли");
         }
 
         BigDecimal amount = normalize(request.getAmount());
@@ -143,17 +429,22 @@ public class AccountDemoService {
                 RoundingMode.HALF_UP
         );
 
-        account.setBalance(account.getBalance().add(amount));
-        account.setLoanDebt(account.getLoanDebt().add(totalToRepay));
+        requireCreditable(account, toMinor(amount));
+        if (account.getLoanDebt() > MAX_BALANCE_MINOR - toMinor(totalToRepay)) {
+            throw new IllegalStateException("Превышен предельный долг по счёту");
+        }
 
-        history.add(new TransferHistoryItem(
-                "BANK",
-                account.getOwnerUsername(),
-                amount,
-                account.getCurrency(),
-                "Кредит: пополнение по кредиту",
-                LocalDateTime.now()
-        ));
+        long createdAt = System.currentTimeMillis();
+        if (ledger.isEnabled()) {
+            com.example.banksys.model.Account state = ledger.loan(account.getId(), toMinor(amount), toMinor(totalToRepay));
+            syncAccount(account, state);
+            historyWriter.publish(newTransfer(null, account, toMinor(amount), LOAN_DESCRIPTION, createdAt));
+            appendLoanHistory(account, toMinor(amount), createdAt);
+        } else {
+            long position = journal.appendLoan(account.getId(), toMinor(amount), toMinor(totalToRepay), createdAt);
+            applyLoan(account, toMinor(amount), toMinor(totalToRepay), createdAt);
+            journal.awaitDurable(position);
+        }
 
         return new LoanResponse(
                 "ok",
@@ -164,19 +455,276 @@ public class AccountDemoService {
         );
     }
 
-    public List<TransferHistoryItem> getHistory(String username) {
-        synchronized (history) {
-            if (username == null || username.isBlank()) {
-                return new ArrayList<>(history);
+    private void settleInLedger(Account[] fromAccounts,
+                                  Account[] toAccounts,
+                                  long[] amounts,
+                                  List<TransferRequest> requests) {
+        Map<Long, Long> net = new LinkedHashMap<>();
+        for (int i = 0; i < amounts.length; i++) {
+            net.merge(fromAccounts[i].getId(), -amounts[i], Long::sum);
+            net.merge(toAccounts[i].getId(), amounts[i], Long::sum);
+        }
+        syncFromLedger(ledger.settle(net));
+        long createdAt = System.currentTimeMillis();
+        for (int i = 0; i < amounts.length; i++) {
+            String description = requests.get(i).getDescription();
+            historyWriter.publish(newTransfer(fromAccounts[i], toAccounts[i], amounts[i], description, createdAt));
+            appendTransferHistory(fromAccounts[i], toAccounts[i], amounts[i], description, createdAt);
+        }
+    }
+
+    /**
+     * Проводит пакет взаимозачётом в памяти. Весь пакет пишется в журнал одним кадром
+     * после резервирования списаний и до зачислений: если запись не удалась, списания
+     * возвращаются и пакет не виден ни в памяти, ни после восстановления.
+     * Возвращает позицию в журнале для ожидания fsync.
+     */
+    private long settleAtomically(Account[] fromAccounts,
+                                  Account[] toAccounts,
+                                  long[] amounts,
+                                  List<TransferRequest> requests) {
+        Map<Account, Long> net = new LinkedHashMap<>();
+        for (int i = 0; i < amounts.length; i++) {
+            net.merge(fromAccounts[i], -amounts[i], Long::sum);
+            net.merge(toAccounts[i], amounts[i], Long::sum);
+        }
+
+        for (Map.Entry<Account, Long> entry : net.entrySet()) {
+            if (entry.getValue() > 0) {
+                requireCreditable(entry.getKey(), entry.getValue());
             }
-            List<TransferHistoryItem> filtered = new ArrayList<>();
-            for (TransferHistoryItem item : history) {
-                if (username.equalsIgnoreCase(item.getFromUsername())
-                        || username.equalsIgnoreCase(item.getToUsername())) {
-                    filtered.add(item);
-                }
+        }
+        // Сначала резервируем списания: если хоть одно не проходит, возвращаем уже
+        // списанное. Зачисления не могут упасть, поэтому делаются после.
+        List<Map.Entry<Account, Long>> debited = new ArrayList<>();
+        for (Map.Entry<Account, Long> entry : net.entrySet()) {
+            if (entry.getValue() >= 0) {
+                continue;
+            }
+            if (!entry.getKey().tryDebit(-entry.getValue())) {
+                refund(debited);
+                throw new InsufficientFundsException("Пакет отклонён: недостаточно средств на счёте " + entry.getKey().getId());
+            }
+            debited.add(entry);
+        }
+
+        long createdAt = System.currentTimeMillis();
+        String[] descriptions = new String[amounts.length];
+        long position;
+        try {
+            long[] fromIds = new long[amounts.length];
+            long[] toIds = new long[amounts.length];
+            for (int i = 0; i < amounts.length; i++) {
+                fromIds[i] = fromAccounts[i].getId();
+                toIds[i] = toAccounts[i].getId();
+                descriptions[i] = requests.get(i).getDescription();
+            }
+            position = journal.appendTransferBatch(fromIds, toIds, amounts, createdAt, descriptions);
+        } catch (RuntimeException e) {
+            refund(debited);
+            throw e;
+        }
+
+        for (Map.Entry<Account, Long> entry : net.entrySet()) {
+            if (entry.getValue() > 0) {
+                entry.getKey().credit(entry.getValue());
+            }
+        }
+        accountsChanged();
+        for (int i = 0; i < amounts.length; i++) {
+            appendTransferHistory(fromAccounts[i], toAccounts[i], amounts[i], descriptions[i], createdAt);
+        }
+        return position;
+    }
+
+    private static void refund(List<Map.Entry<Account, Long>> debited) {
+        for (Map.Entry<Account, Long> done : debited) {
+            done.getKey().credit(-done.getValue());
+        }
+    }
+
+    private TransferBatchResponse rejectBatch(TransferBatchItemResult[] results, String message, Rejection reason) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = new TransferBatchItemResult(i, "rejected", message);
+                metrics.rejected(Operation.TRANSFER, reason);
+            }
+        }
+        return new TransferBatchResponse("rejected", BATCH_ATOMIC, 0, results.length, List.of(results));
+    }
+
+    public TransferHistoryPage getHistory(String username, Long before, Long after, Integer limit) {
+        if (before != null && after != null) {
+            throw new IllegalArgumentException("Укажите только один курсор: before или after");
+        }
+        int pageSize = limit == null ? DEFAULT_HISTORY_PAGE : limit;
+        if (pageSize <= 0 || pageSize > MAX_HISTORY_PAGE) {
+            throw new IllegalArgumentException("limit должен быть от 1 до " + MAX_HISTORY_PAGE);
+        }
+        return history.page(username, before, after, pageSize);
+    }
+
+    /**
+     * Выписка по счёту за дни {@code [from, to]} из дневных итогов, за O(дней периода).
+     * По умолчанию — последние 30 дней по сегодняшний включительно.
+     */
+    public AccountStatement getStatement(long accountId, LocalDate from, LocalDate to) {
+        Account account = requireAccount(accountId);
+        LocalDate end = to != null ? to : LocalDate.ofEpochDay(statements.epochDay(System.currentTimeMillis()));
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_STATEMENT_DAYS - 1);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Начало периода должно быть не позже конца");
+        }
+        if (end.toEpochDay() - start.toEpochDay() >= statements.retentionDays()) {
+            throw new IllegalArgumentException("Период выписки не длиннее " + statements.retentionDays() + " дней");
+        }
+
+        long[] rows = statements.range(accountId, start.toEpochDay(), end.toEpochDay());
+        List<StatementDay> days = new ArrayList<>(rows.length / StatementBook.FIELDS);
+        long credited = 0;
+        long debited = 0;
+        long loans = 0;
+        long operations = 0;
+        for (int base = 0; base < rows.length; base += StatementBook.FIELDS) {
+            credited += rows[base + StatementBook.CREDITED];
+            debited += rows[base + StatementBook.DEBITED];
+            loans += rows[base + StatementBook.LOANS];
+            operations += rows[base + StatementBook.OPERATIONS];
+            days.add(new StatementDay(
+                    LocalDate.ofEpochDay(rows[base + StatementBook.DAY]),
+                    toAmount(rows[base + StatementBook.CREDITED]),
+                    toAmount(rows[base + StatementBook.DEBITED]),
+                    toAmount(rows[base + StatementBook.LOANS]),
+                    rows[base + StatementBook.OPERATIONS]));
+        }
+        return new AccountStatement(account.getId(), account.getNumber(), account.getCurrency(), start, end,
+                toAmount(credited), toAmount(debited), toAmount(loans), operations, days);
+    }
+
+    /**
+     * Поиск по истории: слова описания и логины участников (все должны совпасть)
+     * и диапазон суммы. Ответ — от новых записей к старым, не больше {@code limit}.
+     */
+    public List<TransferHistoryItem> searchHistory(String query,
+                                                   BigDecimal minAmount,
+                                                   BigDecimal maxAmount,
+                                                   Integer limit) {
+        boolean hasQuery = query != null && !query.isBlank();
+        if (!hasQuery && minAmount == null && maxAmount == null) {
+            throw new IllegalArgumentException("Укажите q или диапазон суммы (minAmount/maxAmount)");
+        }
+        if (minAmount != null && maxAmount != null && minAmount.compareTo(maxAmount) > 0) {
+            throw new IllegalArgumentException("minAmount не может быть больше maxAmount");
+        }
+        int pageSize = limit == null ? DEFAULT_HISTORY_PAGE : limit;
+        if (pageSize <= 0 || pageSize > MAX_HISTORY_PAGE) {
+            throw new IllegalArgumentException("limit должен быть от 1 до " + MAX_HISTORY_PAGE);
+        }
+        return history.search(query, minAmount, maxAmount, pageSize);
+    }
+
+    /**
+     * Выгрузка истории от старых записей к новым с фильтром по пользователю
+     * и времени {@code [from, to)}. Записи передаются в {@code action} по одной,
+     * без копирования журнала.
+     */
+    public void exportHistory(String username,
+                              LocalDateTime from,
+                              LocalDateTime to,
+                              Consumer<TransferHistoryItem> action) {
+        validateExportRange(from, to);
+        history.forEach(username, item -> {
+            LocalDateTime createdAt = item.getCreatedAt();
+            if ((from == null || !createdAt.isBefore(from)) && (to == null || createdAt.isBefore(to))) {
+                action.accept(item);
             }
-            return filtered;
+        });
+    }
+
+    /** Проверка периода выгрузки; вызывается до начала записи ответа. */
+    public void validateExportRange(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Начало периода должно быть раньше конца");
+        }
+    }
+
+    /**
+     * Переводит сумму и возвращает позицию в журнале (0 в режиме Postgres).
+     * Бросает IllegalStateException, если средств недостаточно.
+     */
+    private long moveFunds(Account from, Account to, long amount, String description) {
+        requireCreditable(to, amount);
+        if (ledger.isEnabled()) {
+            long createdAt = System.currentTimeMillis();
+            syncFromLedger(ledger.transfer(from.getId(), to.getId(), amount));
+            historyWriter.publish(newTransfer(from, to, amount, description, createdAt));
+            appendTransferHistory(from, to, amount, description, createdAt);
+            return 0;
+        }
+        if (!from.tryDebit(amount)) {
+            throw new InsufficientFundsException("Недостаточно средств на счёте отправителя");
+        }
+        // Сначала долговечная запись: если она не удалась, списание возвращается
+        // и перевода нет нигде. История и выписки дописываются уже после неё.
+        long createdAt = System.currentTimeMillis();
+        long position;
+        try {
+            position = journal.appendTransfer(from.getId(), to.getId(), amount, createdAt, description);
+        } catch (RuntimeException e) {
+            from.credit(amount);
+            throw e;
+        }
+        to.credit(amount);
+        accountsChanged();
+        appendTransferHistory(from, to, amount, description, createdAt);
+        return position;
+    }
+
+    /**
+     * Дописывает перевод в историю и дневные итоги. Вызывается, когда перевод уже
+     * проведён и записан, поэтому не бросает: сбой только логируется.
+     */
+    private void appendTransferHistory(Account from, Account to, long amount, String description, long createdAt) {
+        try {
+            statements.transfer(from.getId(), to.getId(), amount, createdAt);
+            history.append(new TransferHistoryItem(
+                    from.getOwnerUsername(),
+                    from.getNumber(),
+                    to.getOwnerUsername(),
+                    to.getNumber(),
+                    toAmount(amount),
+                    from.getCurrency(),
+                    description,
+                    toDateTime(createdAt)
+            ));
+        } catch (RuntimeException e) {
+            log.error("Перевод {} -> {} проведён, но не попал в историю", from.getId(), to.getId(), e);
+        }
+    }
+
+    private void applyLoan(Account account, long amount, long totalToRepay, long createdAt) {
+        account.credit(amount);
+        account.addLoanDebt(totalToRepay);
+        accountsChanged();
+        appendLoanHistory(account, amount, createdAt);
+    }
+
+    /** Как и {@link #appendTransferHistory}, не бросает: кредит к этому моменту уже выдан. */
+    private void appendLoanHistory(Account account, long amount, long createdAt) {
+        try {
+            statements.loan(account.getId(), amount, createdAt);
+            history.append(new TransferHistoryItem(
+                    "BANK",
+                    null,
+                    account.getOwnerUsername(),
+                    account.getNumber(),
+                    toAmount(amount),
+                    account.getCurrency(),
+                    LOAN_DESCRIPTION,
+                    toDateTime(createdAt)
+            ));
+        } catch (RuntimeException e) {
+            log.error("Кредит на счёт {} выдан, но не попал в историю", account.getId(), e);
         }
     }
 
@@ -207,6 +755,21 @@ public class AccountDemoService {
         }
     }
 
+    private void validateTransferByNumber(TransferByNumberRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Некорректный запрос перевода");
+        }
+        if (request.getFromNumber() == null || request.getToNumber() == null) {
+            throw new IllegalArgumentException("Нужно указать номера счетов отправителя и получателя");
+        }
+        if (request.getFromNumber().trim().equals(request.getToNumber().trim())) {
+            throw new IllegalArgumentException("Счета отправителя и получателя не должны совпадать");
+        }
+        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Сумма перевода должна быть больше нуля");
+        }
+    }
+
     private void validateTransferByUser(TransferByUserRequest request) {
         if (request == null) {
             throw new IllegalArgumentException("Некорректный запрос перевода");
@@ -222,31 +785,98 @@ public class AccountDemoService {
         }
     }
 
-    private Account requireAccount(Long accountId) {
+    /**
+     * Счёт по id. В режиме Postgres счёт мог открыть другой экземпляр — тогда при
+     * промахе по локальному зеркалу он читается из БД и привязывается к владельцу.
+     */
+    private Account requireAccount(long accountId) {
         Account account = accounts.get(accountId);
+        if (account == null && ledger.isEnabled()) {
+            account = ledger.findAccount(accountId).map(this::loadFromLedger).orElse(null);
+        }
+        if (account == null) {
+            throw new AccountNotFoundException("Счёт не найден: " + accountId);
+        }
+        return account;
+    }
+
+    /** Первый счёт пользователя в валюте {@code currency}, а без валюты — основной. */
+    private Account requireAccountByUsername(String username, String currency) {
+        Account account = findAccountByUsername(username, currency);
+        if (account == null && ledger.isEnabled()) {
+            ledger.findAccountsByOwner(username).forEach(this::loadFromLedger);
+            account = findAccountByUsername(username, currency);
+        }
+        if (account != null) {
+            return account;
+        }
+        List<Account> owned = userAccounts.get(username);
+        if (owned != null && !owned.isEmpty()) {
+            throw new AccountNotFoundException("У пользователя " + username + " нет счёта в валюте " + currency);
+        }
+        throw new AccountNotFoundException("Счёт для пользователя не найден: " + username);
+    }
+
+    private Account findAccountByUsername(String username, String currency) {
+        List<Account> owned = userAccounts.get(username);
+        if (owned == null || owned.isEmpty()) {
+            return null;
+        }
+        if (currency == null || currency.isBlank()) {
+            return owned.get(0);
+        }
+        for (Account account : owned) {
+            if (account.getCurrency().equalsIgnoreCase(currency)) {
+                return account;
+            }
+        }
+        return null;
+    }
+
+    private Account requireAccountByNumber(String number) {
+        Account account = accountsByNumber.get(number.trim());
+        if (account == null && ledger.isEnabled()) {
+            account = ledger.findAccountByNumber(number.trim()).map(this::loadFromLedger).orElse(null);
+        }
         if (account == null) {
-            throw new IllegalArgumentException("Счёт не найден: " + accountId);
+            throw new AccountNotFoundException("Счёт не найден: " + number);
         }
         return account;
     }
 
-    private Account requireAccountByUsername(String username) {
-        Long accountId = userAccounts.get(username);
-        if (accountId == null) {
-            throw new IllegalArgumentException("Счёт для пользователя не найден: " + username);
+    private void requireSameCurrency(Account from, Account to) {
+        if (!from.getCurrency().equals(to.getCurrency())) {
+            throw new IllegalArgumentException("Валюты счетов не совпадают: " + from.getCurrency() + " и " + to.getCurrency());
         }
-        return requireAccount(accountId);
     }
 
+    /**
+     * Создаёт счёт. {@code durable} — дождаться fsync записи в журнале; при сидировании
+     * не нужен, а для счёта, открытого по запросу клиента, обязателен.
+     */
     private Account addAccount(String title,
-                               String number,
                                String currency,
                                BigDecimal balance,
                                BigDecimal loanDebt,
-                               String ownerUsername) {
+                               String ownerUsername,
+                               boolean durable) {
+        if (ledger.isEnabled()) {
+            com.example.banksys.model.Account entity = ledger.openAccount(ownerUsername, title, currency,
+                    toMinor(balance), toMinor(loanDebt), AccountDemoService::accountNumber);
+            return registerLedgerAccount(entity);
+        }
         long id = idSequence.getAndIncrement();
-        Account account = new Account(id, title, number, currency, normalize(balance), normalize(loanDebt), ownerUsername);
+        String number = accountNumber(id);
+        Account account = new Account(id, title, number, currency, toMinor(balance), toMinor(loanDebt), ownerUsername);
+        // Сначала кадр открытия, потом публикация: перевод на новый счёт не может
+        // попасть в журнал раньше, чем сам счёт.
+        long position = journal.appendAccountOpened(id, ownerUsername, title, number, currency,
+                account.getBalance(), account.getLoanDebt());
         accounts.put(id, account);
+        accountsChanged();
+        if (durable) {
+            journal.awaitDurable(position);
+        }
         return account;
     }
 
@@ -255,19 +885,139 @@ public class AccountDemoService {
                                       String currency,
                                       BigDecimal balance,
                                       BigDecimal loanDebt) {
-        Account account = addAccount(title, generateAccountNumber(), currency, balance, loanDebt, username);
-        userAccounts.put(username, account.getId());
+        Account account = addAccount(title, currency, balance, loanDebt, username, false);
+        bindToUser(account);
+        return account;
+    }
+
+    private void restoreFromLedger() {
+        ledger.initChangeCount();
+        Map<String, Account> byOwner = new HashMap<>();
+        for (com.example.banksys.model.Account entity : ledger.findAllAccounts()) {
+            Account account = loadFromLedger(entity);
+            byOwner.putIfAbsent(account.getOwnerUsername(), account);
+        }
+        for (Employee emp : employeeRepository.findAll()) {
+            String username = emp.getUsername();
+            if (byOwner.containsKey(username)) {
+                continue;
+            }
+            com.example.banksys.model.Account entity = ledger.openInitialAccount(username, "Основной счёт", "KZT",
+                    toMinor(seedBalance(username)), toMinor(seedDebt(username)), AccountDemoService::accountNumber);
+            if (entity != null) {
+                loadFromLedger(entity);
+            } else {
+                // Другой экземпляр успел открыть счёт между чтением и блокировкой.
+                ledger.findAccountsByOwner(username).forEach(this::loadFromLedger);
+            }
+        }
+    }
+
+    /**
+     * Сверка с БД не чаще раза в интервал и одним потоком: остальные запросы отдают
+     * текущий снимок. Сначала читается счётчик изменений (несколько строк
+     * {@code ledger_changes}), вся таблица счетов — только если он сдвинулся.
+     */
+    private void refreshFromLedgerIfDue() {
+        long now = System.currentTimeMillis();
+        long due = ledgerRefreshAt.get();
+        if (now < due || !ledgerRefreshAt.compareAndSet(due, now + ledger.refreshIntervalMillis())) {
+            return;
+        }
+        long changeCount = ledger.changeCount();
+        if (changeCount != ledgerChangeCount) {
+            refreshFromLedger();
+            ledgerChangeCount = changeCount;
+        }
+    }
+
+    private void refreshFromLedger() {
+        for (com.example.banksys.model.Account entity : ledger.findAllAccounts()) {
+            Account account = accounts.get(entity.getId());
+            if (account == null) {
+                loadFromLedger(entity);
+            } else {
+                syncAccount(account, entity);
+            }
+        }
+    }
+
+    private void syncFromLedger(List<com.example.banksys.model.Account> states) {
+        for (com.example.banksys.model.Account state : states) {
+            Account account = accounts.get(state.getId());
+            if (account != null) {
+                syncAccount(account, state);
+            }
+        }
+    }
+
+    private void syncAccount(Account account, com.example.banksys.model.Account state) {
+        if (account.sync(state.getVersion(), state.getBalance(), state.getLoanDebt())) {
+            accountsChanged();
+        }
+    }
+
+    private void accountsChanged() {
+        accountsVersion.increment();
+    }
+
+    /** Добавляет счёт из БД в локальное зеркало и привязывает к владельцу. */
+    private Account loadFromLedger(com.example.banksys.model.Account entity) {
+        Account account = registerLedgerAccount(entity);
+        bindToUser(account);
         return account;
     }
 
+    private Account registerLedgerAccount(com.example.banksys.model.Account entity) {
+        Account account = new Account(entity.getId(), entity.getTitle(), entity.getNumber(), entity.getCurrency(),
+                entity.getBalance(), entity.getLoanDebt(), entity.getOwnerUsername());
+        account.sync(entity.getVersion(), entity.getBalance(), entity.getLoanDebt());
+        Account existing = accounts.putIfAbsent(account.getId(), account);
+        if (existing != null) {
+            return existing;
+        }
+        accountsChanged();
+        return account;
+    }
+
+    private Transfer newTransfer(Account from, Account to, long amount, String description, long createdAt) {
+        return LedgerPersistenceService.truncate(new Transfer(
+                from == null ? null : from.getId(),
+                to.getId(),
+                from == null ? "BANK" : from.getOwnerUsername(),
+                to.getOwnerUsername(),
+                amount,
+                to.getCurrency(),
+                description,
+                toDateTime(createdAt)
+        ));
+    }
+
+    private void bindToUser(Account account) {
+        userAccounts.compute(account.getOwnerUsername(), (owner, owned) -> {
+            if (owned == null) {
+                return List.of(account);
+            }
+            if (owned.contains(account)) {
+                return owned;
+            }
+            List<Account> updated = new ArrayList<>(owned.size() + 1);
+            updated.addAll(owned);
+            updated.add(account);
+            return List.copyOf(updated);
+        });
+        accountsByNumber.put(account.getNumber(), account);
+        authorizationIndex.bindAccount(account.getOwnerUsername(), account.getId());
+    }
+
     private AccountDto toDto(Account account) {
         return new AccountDto(
                 account.getId(),
                 account.getTitle(),
                 account.getNumber(),
                 account.getCurrency(),
-                normalize(account.getBalance()),
-                normalize(account.getLoanDebt()),
+                toAmount(account.getBalance()),
+                toAmount(account.getLoanDebt()),
                 account.getOwnerUsername()
         );
     }
@@ -298,46 +1048,173 @@ public class AccountDemoService {
         return value.setScale(2, RoundingMode.HALF_UP);
     }
 
-    private String generateAccountNumber() {
-        long id = idSequence.get();
-        return String.format("KZ%018d", id);
+    /** Сумма в тиынах; больше {@link #MAX_AMOUNT} — IllegalArgumentException (400), а не переполнение. */
+    private long toMinor(BigDecimal value) {
+        BigDecimal normalized = normalize(value);
+        if (normalized.abs().compareTo(MAX_AMOUNT) > 0) {
+            throw new IllegalArgumentException("Сумма не может превышать " + MAX_AMOUNT.toPlainString());
+        }
+        return normalized.unscaledValue().longValue();
     }
 
-    private boolean isBlockedRole(String username) {
-        if (username == null) {
-            return true;
+    /**
+     * Проверяет до записи в журнал, что зачисление не выведет баланс за предел:
+     * после журнала операцию уже нельзя отклонить.
+     */
+    private static void requireCreditable(Account account, long amount) {
+        if (account.getBalance() > MAX_BALANCE_MINOR - amount) {
+            throw new IllegalStateException("Превышен предельный баланс счёта " + account.getId());
+        }
+    }
+
+    private BigDecimal toAmount(long minor) {
+        return BigDecimal.valueOf(minor, 2);
+    }
+
+    private LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /** Номер вида KZ + id с ведущими нулями до 18 цифр, без String.format. */
+    static String accountNumber(long id) {
+        char[] number = new char[2 + ACCOUNT_NUMBER_DIGITS];
+        number[0] = 'K';
+        number[1] = 'Z';
+        long rest = id;
+        for (int i = number.length - 1; i >= 2; i--) {
+            number[i] = (char) ('0' + rest % 10);
+            rest /= 10;
+        }
+        return new String(number);
+    }
+
+    private static String normalizeCurrency(String currency) {
+        if (currency == null) {
+            return null;
+        }
+        String code = currency.trim().toUpperCase(Locale.ROOT);
+        if (code.length() != 3) {
+            return null;
+        }
+        for (int i = 0; i < code.length(); i++) {
+            if (code.charAt(i) < 'A' || code.charAt(i) > 'Z') {
+                return null;
+            }
+        }
+        return code;
+    }
+
+    private boolean isBlockedRole(Account account) {
+        return (authorizationIndex.roleMask(account.getId()) & BLOCKED_ROLES) != 0;
+    }
+
+    /** Выполняет операцию и учитывает её исход в метриках с причиной отказа. */
+    private <T> T counted(Operation operation, Supplier<T> action) {
+        try {
+            T result = action.get();
+            metrics.succeeded(operation);
+            return result;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            metrics.rejected(operation, rejectionOf(e));
+            throw e;
+        }
+    }
+
+    private static Rejection rejectionOf(RuntimeException e) {
+        if (e instanceof AccountNotFoundException) {
+            return Rejection.NOT_FOUND;
+        }
+        if (e instanceof InsufficientFundsException) {
+            return Rejection.INSUFFICIENT_FUNDS;
+        }
+        if (e instanceof OperationBlockedException) {
+            return Rejection.BLOCKED_ROLE;
+        }
+        return e instanceof IllegalArgumentException ? Rejection.INVALID : Rejection.CONFLICT;
+    }
+
+    /**
+     * Восстанавливает счета, балансы и историю из журнала. Переводы применяются
+     * без проверки остатка: порядок записей в журнале может отличаться от порядка
+     * списаний, но итоговые суммы от него не зависят.
+     */
+    private class JournalRecovery implements JournalVisitor {
+
+        @Override
+        public void onAccountOpened(long accountId,
+                                    String ownerUsername,
+                                    String title,
+                                    String number,
+                                    String currency,
+                                    long balance,
+                                    long loanDebt) {
+            Account account = new Account(accountId, title, number, currency, balance, loanDebt, ownerUsername);
+            accounts.put(accountId, account);
+            accountsChanged();
+            bindToUser(account);
+            idSequence.accumulateAndGet(accountId + 1, Math::max);
+        }
+
+        @Override
+        public void onTransfer(long fromAccountId, long toAccountId, long amount, long createdAtMillis, String description) {
+            Account from = accounts.get(fromAccountId);
+            Account to = accounts.get(toAccountId);
+            if (from == null || to == null) {
+                // Так же кадр пропускает и JournalSnapshotter — снимок и восстановление не расходятся.
+                log.error("Журнал: перевод {} -> {} на {} ссылается на неизвестный счёт, запись пропущена",
+                        fromAccountId, toAccountId, amount);
+                return;
+            }
+            from.credit(-amount);
+            to.credit(amount);
+            accountsChanged();
+            appendTransferHistory(from, to, amount, description, createdAtMillis);
+        }
+
+        @Override
+        public void onLoan(long accountId, long amount, long totalToRepay, long createdAtMillis) {
+            Account account = accounts.get(accountId);
+            if (account == null) {
+                log.error("Журнал: кредит на {} ссылается на неизвестный счёт {}, запись пропущена", amount, accountId);
+                return;
+            }
+            applyLoan(account, amount, totalToRepay, createdAtMillis);
+        }
+
+        @Override
+        public void onIdSequence(long nextId) {
+            idSequence.accumulateAndGet(nextId, Math::max);
         }
-        return employeeRepository.findByUsername(username)
-                .map(Employee::getRoles)
-                .map(roles -> roles.stream().anyMatch(r ->
-                        "ADMIN".equalsIgnoreCase(r.getName())
-                                || "MANAGER".equalsIgnoreCase(r.getName())
-                                || "EMPLOYEE".equalsIgnoreCase(r.getName())))
-                .orElse(true);
     }
 
+    /**
+     * Счёт хранит суммы в тиынах (сотых долях) в атомарных long-полях:
+     * списание с проверкой остатка — один CAS-цикл без блокировок,
+     * а BigDecimal создаётся только при выдаче DTO.
+     */
     private static class Account {
         private final Long id;
         private final String title;
         private final String number;
         private final String currency;
         private final String ownerUsername;
-        private BigDecimal balance;
-        private BigDecimal loanDebt;
+        private final AtomicLong balance;
+        private final AtomicLong loanDebt;
+        private long syncedVersion = -1;
 
         private Account(Long id,
                         String title,
                         String number,
                         String currency,
-                        BigDecimal balance,
-                        BigDecimal loanDebt,
+                        long balance,
+                        long loanDebt,
                         String ownerUsername) {
             this.id = id;
             this.title = title;
             this.number = number;
             this.currency = currency;
-            this.balance = balance;
-            this.loanDebt = loanDebt;
+            this.balance = new AtomicLong(balance);
+            this.loanDebt = new AtomicLong(loanDebt);
             this.ownerUsername = ownerUsername;
         }
 
@@ -357,24 +1234,64 @@ public class AccountDemoService {
             return currency;
         }
 
-        public BigDecimal getBalance() {
-            return balance;
+        public long getBalance() {
+            return balance.get();
         }
 
-        public BigDecimal getLoanDebt() {
-            return loanDebt;
+        public long getLoanDebt() {
+            return loanDebt.get();
         }
 
         public String getOwnerUsername() {
             return ownerUsername;
         }
 
-        public void setBalance(BigDecimal balance) {
-            this.balance = balance;
+        public boolean tryDebit(long amount) {
+            long current;
+            do {
+                current = balance.get();
+                if (current < amount) {
+                    return false;
+                }
+            } while (!balance.compareAndSet(current, current - amount));
+            return true;
         }
 
-        public void setLoanDebt(BigDecimal loanDebt) {
-            this.loanDebt = loanDebt;
+        /** Зачисление; переполнение long отклоняется, а не заворачивает баланс. */
+        public void credit(long amount) {
+            addExact(balance, amount);
+        }
+
+        public void addLoanDebt(long amount) {
+            addExact(loanDebt, amount);
+        }
+
+        private static void addExact(AtomicLong value, long amount) {
+            long current;
+            long next;
+            do {
+                current = value.get();
+                try {
+                    next = Math.addExact(current, amount);
+                } catch (ArithmeticException e) {
+                    throw new IllegalStateException("Сумма на счёте вышла за допустимый предел", e);
+                }
+            } while (!value.compareAndSet(current, next));
+        }
+
+        /**
+         * Обновляет зеркало счёта значениями из БД; более старая версия
+         * (ответ, обогнанный другим запросом) игнорируется.
+         * Возвращает true, если баланс или долг изменились.
+         */
+        public synchronized boolean sync(long version, long newBalance, long newLoanDebt) {
+            if (version < syncedVersion) {
+                return false;
+            }
+            syncedVersion = version;
+            long oldBalance = balance.getAndSet(newBalance);
+            long oldLoanDebt = loanDebt.getAndSet(newLoanDebt);
+            return oldBalance != newBalance || oldLoanDebt != newLoanDebt;
         }
     }
 }
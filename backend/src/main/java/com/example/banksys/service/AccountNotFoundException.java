@@ -0,0 +1,9 @@
+package com.example.banksys.service;
+
+/** Счёт или пользователь не найден; контроллеры отвечают 400, как на любой IllegalArgumentException. */
+public class AccountNotFoundException extends IllegalArgumentException {
+
+    public AccountNotFoundException(String message) {
+        super(message);
+    }
+}
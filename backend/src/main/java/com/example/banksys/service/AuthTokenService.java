@@ -1,25 +1,179 @@
 package com.example.banksys.service;
 
+import com.example.banksys.model.Employee;
+import com.example.banksys.model.Role;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Подписанные токены доступа без состояния: {@code v1.<payload>.<hmac>} в base64url.
+ * В payload лежат id, логин, имя, маска ролей и срок действия, поэтому
+ * проверка токена — один HMAC-SHA256 без обращения к БД.
+ * <p>
+ * Ключ задаётся {@code banksys.auth.token.secret}; если он пуст, генерируется
+ * случайный при старте и токены перестают действовать после перезапуска.
+ * Несколько экземпляров должны использовать один и тот же ключ.
+ */
 @Service
 public class AuthTokenService {
 
-    private static final String PREFIX = "mock-";
+    private static final String PREFIX = "v1.";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_LENGTH = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Mac prototype;
+    private final long ttlSeconds;
+    // Mac не потокобезопасен, а Mac.getInstance дорогой — держим по экземпляру на поток,
+    // копируя уже инициализированный ключом прототип.
+    private final ThreadLocal<Signer> signers = ThreadLocal.withInitial(() -> new Signer(copyMac()));
+
+    public AuthTokenService(@Value("${banksys.auth.token.secret:}") String secret,
+                            @Value("${banksys.auth.token.ttl-seconds:43200}") long ttlSeconds) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        if (ttlSeconds <= 0) {
+            throw new IllegalArgumentException("banksys.auth.token.ttl-seconds должен быть больше нуля");
+        }
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(keyBytes, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC недоступен", e);
+        }
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public String generateToken(Employee employee) {
+        long roleMask = 0;
+        for (Role role : employee.getRoles()) {
+            roleMask |= AuthorizationIndex.bitOf(role.getName());
+        }
+        return generateToken(employee.getId(), employee.getUsername(), employee.getFullName(), roleMask);
+    }
+
+    public String generateToken(CachedEmployee employee) {
+        return generateToken(employee.getId(), employee.getUsername(), employee.getFullName(), employee.getRoleMask());
+    }
+
+    private String generateToken(long employeeId, String username, String fullName, long roleMask) {
+        byte[] usernameBytes = username.getBytes(StandardCharsets.UTF_8);
+        byte[] fullNameBytes = fullName.getBytes(StandardCharsets.UTF_8);
+        long expiresAt = System.currentTimeMillis() / 1000 + ttlSeconds;
+
+        ByteBuffer payload = ByteBuffer.allocate(
+                Long.BYTES * 3 + Short.BYTES * 2 + usernameBytes.length + fullNameBytes.length);
+        payload.putLong(employeeId).putLong(roleMask).putLong(expiresAt);
+        payload.putShort((short) usernameBytes.length).put(usernameBytes);
+        payload.putShort((short) fullNameBytes.length).put(fullNameBytes);
 
-    public String generateToken(Long employeeId) {
-        return PREFIX + employeeId;
+        byte[] bytes = payload.array();
+        byte[] signature = new byte[SIGNATURE_LENGTH];
+        signer().sign(bytes, signature);
+        return PREFIX + ENCODER.encodeToString(bytes) + "." + ENCODER.encodeToString(signature);
     }
 
-    public Long parseEmployeeId(String token) {
+    /**
+     * Проверяет подпись и срок действия. Возвращает содержимое токена
+     * или null, если токен подделан, повреждён или истёк.
+     */
+    public TokenClaims verify(String token) {
         if (token == null || !token.startsWith(PREFIX)) {
             return null;
         }
+        int dot = token.indexOf('.', PREFIX.length());
+        if (dot < 0) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
         try {
-            String idPart = token.substring(PREFIX.length());
-            return Long.parseLong(idPart);
-        } catch (NumberFormatException e) {
+            payload = DECODER.decode(token.substring(PREFIX.length(), dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
             return null;
         }
+        if (signature.length != SIGNATURE_LENGTH || !signer().verify(payload, signature)) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            long employeeId = buffer.getLong();
+            long roleMask = buffer.getLong();
+            long expiresAt = buffer.getLong();
+            if (expiresAt <= System.currentTimeMillis() / 1000) {
+                return null;
+            }
+            String username = readString(buffer);
+            String fullName = readString(buffer);
+            return new TokenClaims(employeeId, username, fullName, roleMask, expiresAt);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * У виртуальных потоков ThreadLocal живёт один запрос, поэтому им отдаётся
+     * свежая копия Mac (clone дешевле getInstance + init), а не кэш потока.
+     */
+    private Signer signer() {
+        return Thread.currentThread().isVirtual() ? new Signer(copyMac()) : signers.get();
+    }
+
+    private Mac copyMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HMAC-провайдер не поддерживает копирование", e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /** Mac одного потока с уже заданным ключом и буфер для ожидаемой подписи. */
+    private static final class Signer {
+        private final Mac mac;
+        private final byte[] expected = new byte[SIGNATURE_LENGTH];
+
+        private Signer(Mac mac) {
+            this.mac = mac;
+        }
+
+        private void sign(byte[] data, byte[] out) {
+            mac.update(data);
+            try {
+                mac.doFinal(out, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private boolean verify(byte[] data, byte[] signature) {
+            sign(data, expected);
+            return MessageDigest.isEqual(expected, signature);
+        }
     }
-}
\ No newline at end of file
+}
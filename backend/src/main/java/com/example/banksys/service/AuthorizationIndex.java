@@ -0,0 +1,246 @@
+package com.example.banksys.service;
+
+import com.example.banksys.model.Employee;
+import com.example.banksys.model.Role;
+import com.example.banksys.repository.EmployeeRepository;
+import com.example.banksys.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс прав в памяти: username -> счёт -> битовая маска ролей.
+ * Строится один раз при старте и обновляется слушателем сущностей,
+ * поэтому проверка роли на переводе — это одна битовая операция без SQL.
+ * Запись о ролях одна на сотрудника (по id): при смене логина она лишь
+ * перевешивается на новое имя, и уже привязанные к ней счета остаются верными.
+ */
+@Component
+public class AuthorizationIndex {
+
+    public static final long ROLE_USER = 1L;
+    public static final long ROLE_MANAGER = 1L << 1;
+    public static final long ROLE_ADMIN = 1L << 2;
+    public static final long ROLE_EMPLOYEE = 1L << 3;
+
+    /** Маска неизвестного пользователя: совпадает с любой проверкой, т.е. всё запрещено. */
+    public static final long UNKNOWN = -1L;
+
+    private final EmployeeRepository employeeRepository;
+    private final RoleRepository roleRepository;
+    private final Map<Long, Long> roleBitsById = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> byEmployeeId = new ConcurrentHashMap<>();
+    private final Map<String, Entry> byUsername = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> byAccountId = new ConcurrentHashMap<>();
+
+    public AuthorizationIndex(EmployeeRepository employeeRepository,
+                              RoleRepository roleRepository) {
+        this.employeeRepository = employeeRepository;
+        this.roleRepository = roleRepository;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        roleBitsById.clear();
+        for (Role role : roleRepository.findAll()) {
+            roleBitsById.put(role.getId(), bitOf(role.getName()));
+        }
+        for (Entry entry : byUsername.values()) {
+            entry.update(null, roleBitsById);
+        }
+        for (Employee employee : employeeRepository.findAllWithRoles()) {
+            updateEmployee(employee);
+        }
+    }
+
+    public static long bitOf(String roleName) {
+        if (roleName == null) {
+            return 0L;
+        }
+        return switch (roleName.toUpperCase(Locale.ROOT)) {
+            case "USER" -> ROLE_USER;
+            case "MANAGER" -> ROLE_MANAGER;
+            case "ADMIN" -> ROLE_ADMIN;
+            case "EMPLOYEE" -> ROLE_EMPLOYEE;
+            default -> 0L;
+        };
+    }
+
+    /** Имена ролей по маске — обратное к {@link #bitOf(String)}. */
+    public static List<String> roleNames(long mask) {
+        List<String> names = new ArrayList<>(4);
+        if ((mask & ROLE_USER) != 0) {
+            names.add("USER");
+        }
+        if ((mask & ROLE_MANAGER) != 0) {
+            names.add("MANAGER");
+        }
+        if ((mask & ROLE_ADMIN) != 0) {
+            names.add("ADMIN");
+        }
+        if ((mask & ROLE_EMPLOYEE) != 0) {
+            names.add("EMPLOYEE");
+        }
+        return names;
+    }
+
+    public long roleMask(long accountId) {
+        Entry entry = byAccountId.get(accountId);
+        return entry == null ? UNKNOWN : entry.roleMask;
+    }
+
+    public long roleMask(String username) {
+        if (username == null) {
+            return UNKNOWN;
+        }
+        Entry entry = byUsername.get(username);
+        return entry == null ? UNKNOWN : entry.roleMask;
+    }
+
+    public void bindAccount(String username, long accountId) {
+        if (username == null) {
+            return;
+        }
+        byAccountId.put(accountId, byUsername.computeIfAbsent(username, k -> new Entry()));
+    }
+
+    public void clearAccounts() {
+        byAccountId.clear();
+    }
+
+    /** Обновляет роли и логин сотрудника. Незагруженные роли перечитываются из БД. */
+    public void updateEmployee(Employee employee) {
+        if (employee.getUsername() == null) {
+            return;
+        }
+        if (employee.getId() != null && !Hibernate.isInitialized(employee.getRoles())) {
+            reloadEmployee(employee.getId());
+            return;
+        }
+        Set<Role> roles = employee.getRoles();
+        long[] roleIds = new long[roles.size()];
+        int i = 0;
+        for (Role role : roles) {
+            if (role.getId() != null) {
+                roleBitsById.putIfAbsent(role.getId(), bitOf(role.getName()));
+                roleIds[i++] = role.getId();
+            }
+        }
+        long[] assigned = i == roleIds.length ? roleIds : Arrays.copyOf(roleIds, i);
+        entryOf(employee.getId(), employee.getUsername()).update(assigned, roleBitsById);
+    }
+
+    /** Перечитывает сотрудника с ролями из БД; нужен, когда сохранённая сущность пришла без ролей. */
+    public void reloadEmployee(long employeeId) {
+        employeeRepository.findByIdWithRoles(employeeId).ifPresent(this::updateEmployee);
+    }
+
+    public void removeEmployee(Employee employee) {
+        if (employee.getId() == null) {
+            return;
+        }
+        Entry entry = byEmployeeId.get(employee.getId());
+        if (entry != null) {
+            entry.forget();
+        }
+    }
+
+    public void updateRole(Role role) {
+        if (role.getId() == null) {
+            return;
+        }
+        roleBitsById.put(role.getId(), bitOf(role.getName()));
+        recomputeRole(role.getId());
+    }
+
+    public void removeRole(Role role) {
+        if (role.getId() == null) {
+            return;
+        }
+        roleBitsById.remove(role.getId());
+        recomputeRole(role.getId());
+    }
+
+    private void recomputeRole(long roleId) {
+        for (Entry entry : byUsername.values()) {
+            if (entry.hasRole(roleId)) {
+                entry.update(null, roleBitsById);
+            }
+        }
+    }
+
+    /**
+     * Запись сотрудника, привязанная к его текущему логину. Запись, заведённая
+     * {@link #bindAccount} до загрузки сотрудника, усыновляется, а при смене логина
+     * запись перевешивается со старого имени на новое. Сотрудник без id (ещё не
+     * сохранённый) отслеживается только по логину.
+     */
+    private synchronized Entry entryOf(Long employeeId, String username) {
+        if (employeeId == null) {
+            return byUsername.computeIfAbsent(username, k -> new Entry());
+        }
+        Entry entry = byEmployeeId.get(employeeId);
+        if (entry == null) {
+            entry = byUsername.computeIfAbsent(username, k -> new Entry());
+            byEmployeeId.put(employeeId, entry);
+        }
+        if (!username.equals(entry.username)) {
+            if (entry.username != null) {
+                byUsername.remove(entry.username, entry);
+            }
+            Entry owner = entry;
+            Entry placeholder = byUsername.put(username, owner);
+            if (placeholder != null && placeholder != owner) {
+                // Счета нового логина были привязаны к заготовке — переводим их на запись сотрудника.
+                byAccountId.replaceAll((accountId, bound) -> bound == placeholder ? owner : bound);
+            }
+            entry.username = username;
+        }
+        return entry;
+    }
+
+    private static final class Entry {
+        private String username;
+        private long[] roleIds;
+        private volatile long roleMask = UNKNOWN;
+
+        synchronized void update(long[] newRoleIds, Map<Long, Long> roleBits) {
+            if (newRoleIds != null) {
+                roleIds = newRoleIds;
+            }
+            if (roleIds == null) {
+                return;
+            }
+            long mask = 0L;
+            for (long roleId : roleIds) {
+                mask |= roleBits.getOrDefault(roleId, 0L);
+            }
+            roleMask = mask;
+        }
+
+        synchronized void forget() {
+            roleIds = null;
+            roleMask = UNKNOWN;
+        }
+
+        synchronized boolean hasRole(long roleId) {
+            if (roleIds == null) {
+                return false;
+            }
+            for (long id : roleIds) {
+                if (id == roleId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.banksys.service;
+
+import com.example.banksys.model.Employee;
+import com.example.banksys.model.Role;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Держит {@link AuthorizationIndex} в актуальном состоянии при изменении сотрудников и ролей.
+ * Индекс берётся лениво: слушатель создаётся Hibernate раньше, чем репозитории готовы.
+ */
+public class AuthorizationIndexListener {
+
+    private final ObjectProvider<AuthorizationIndex> authorizationIndex;
+
+    public AuthorizationIndexListener(ObjectProvider<AuthorizationIndex> authorizationIndex) {
+        this.authorizationIndex = authorizationIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        AuthorizationIndex index = authorizationIndex.getIfAvailable();
+        if (index == null) {
+            return;
+        }
+        if (entity instanceof Employee employee) {
+            if (Hibernate.isInitialized(employee.getRoles())) {
+                index.updateEmployee(employee);
+            } else if (employee.getId() != null) {
+                // Роли не загружены, а читать их посреди flush нельзя — перечитаем после коммита.
+                long id = employee.getId();
+                afterCommit(() -> index.reloadEmployee(id));
+            }
+        } else if (entity instanceof Role role) {
+            index.updateRole(role);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        AuthorizationIndex index = authorizationIndex.getIfAvailable();
+        if (index == null) {
+            return;
+        }
+        if (entity instanceof Employee employee) {
+            index.removeEmployee(employee);
+        } else if (entity instanceof Role role) {
+            index.removeRole(role);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
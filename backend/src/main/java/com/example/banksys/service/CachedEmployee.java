@@ -0,0 +1,66 @@
+package com.example.banksys.service;
+
+import com.example.banksys.model.Employee;
+import com.example.banksys.model.Role;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Неизменяемая копия сотрудника с уже загруженными ролями для {@link EmployeeCache}.
+ * В отличие от сущности её можно держать между транзакциями и читать из любых потоков.
+ */
+public class CachedEmployee {
+
+    private final long id;
+    private final String username;
+    private final String fullName;
+    private final String password;
+    private final boolean active;
+    private final List<String> roles;
+    private final long roleMask;
+
+    public CachedEmployee(Employee employee) {
+        this.id = employee.getId();
+        this.username = employee.getUsername();
+        this.fullName = employee.getFullName();
+        this.password = employee.getPassword();
+        this.active = employee.isActive();
+        List<String> names = new ArrayList<>(employee.getRoles().size());
+        long mask = 0;
+        for (Role role : employee.getRoles()) {
+            names.add(role.getName());
+            mask |= AuthorizationIndex.bitOf(role.getName());
+        }
+        this.roles = List.copyOf(names);
+        this.roleMask = mask;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public long getRoleMask() {
+        return roleMask;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.banksys.service;
+
+import com.example.banksys.metrics.BankMetrics;
+import com.example.banksys.model.Employee;
+import com.example.banksys.repository.EmployeeRepository;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш сотрудников в памяти по id и по логину (точное совпадение, как в БД) поверх
+ * {@link EmployeeRepository}. Хранит {@link CachedEmployee} с ролями, так что
+ * попадание не делает ни одного SQL-запроса.
+ * <p>
+ * Размер ограничен {@code banksys.employee-cache.max-size}: при переполнении
+ * вытесняются произвольные записи — чтение идёт без блокировок, а горячие
+ * пользователи после вытеснения просто загружаются снова.
+ * Неизвестные логины кэшируются на {@code negative-ttl-ms}, чтобы перебор
+ * логинов не бил в БД. Записи сбрасываются {@link EmployeeCacheListener}
+ * при изменении сотрудников и ролей.
+ */
+@Component
+public class EmployeeCache {
+
+    private final EmployeeRepository employeeRepository;
+    private final TransactionTemplate readOnly;
+    private final int maxSize;
+    private final long negativeTtlMillis;
+    private final Map<Long, CachedEmployee> byId = new ConcurrentHashMap<>();
+    private final Map<String, Object> byUsername = new ConcurrentHashMap<>();
+    // Растёт при каждой инвалидации: загрузка, начатая до неё, в кэш не кладётся.
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter negativeHits;
+
+    public EmployeeCache(EmployeeRepository employeeRepository,
+                         PlatformTransactionManager transactionManager,
+                         BankMetrics metrics,
+                         @Value("${banksys.employee-cache.max-size:10000}") int maxSize,
+                         @Value("${banksys.employee-cache.negative-ttl-ms:30000}") long negativeTtlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("banksys.employee-cache.max-size должен быть больше нуля");
+        }
+        this.employeeRepository = employeeRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.maxSize = maxSize;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.hits = metrics.counter("banksys.employee.cache", "Обращения к кэшу сотрудников", "result", "hit");
+        this.misses = metrics.counter("banksys.employee.cache", "Обращения к кэшу сотрудников", "result", "miss");
+        this.negativeHits = metrics.counter("banksys.employee.cache", "Обращения к кэшу сотрудников", "result", "negative_hit");
+        metrics.gauge("banksys.employee.cache.size", "Сотрудников в кэше", byId, Map::size);
+    }
+
+    public Optional<CachedEmployee> findByUsername(String username) {
+        String key = key(username);
+        if (key == null) {
+            return Optional.empty();
+        }
+        Object cached = byUsername.get(key);
+        if (cached instanceof CachedEmployee employee) {
+            hits.increment();
+            return Optional.of(employee);
+        }
+        if (cached instanceof NotFound notFound && notFound.expiresAt > System.currentTimeMillis()) {
+            negativeHits.increment();
+            return Optional.empty();
+        }
+        misses.increment();
+        long loadedAt = generation.get();
+        Optional<CachedEmployee> loaded = load(() -> employeeRepository.findByUsernameWithRoles(key));
+        if (generation.get() == loadedAt) {
+            if (loaded.isPresent()) {
+                put(loaded.get());
+            } else {
+                evictIfFull(byUsername);
+                byUsername.put(key, new NotFound(System.currentTimeMillis() + negativeTtlMillis));
+            }
+        }
+        return loaded;
+    }
+
+    public Optional<CachedEmployee> findById(long id) {
+        CachedEmployee cached = byId.get(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        long loadedAt = generation.get();
+        Optional<CachedEmployee> loaded = load(() -> employeeRepository.findByIdWithRoles(id));
+        if (loaded.isPresent() && generation.get() == loadedAt) {
+            put(loaded.get());
+        }
+        return loaded;
+    }
+
+    /** Сбрасывает записи сотрудника, в том числе по прежнему логину, если он менялся. */
+    public void invalidate(Employee employee) {
+        generation.incrementAndGet();
+        if (employee.getId() != null) {
+            CachedEmployee previous = byId.remove(employee.getId());
+            if (previous != null) {
+                byUsername.remove(key(previous.getUsername()));
+            }
+        }
+        String key = key(employee.getUsername());
+        if (key != null) {
+            byUsername.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        byId.clear();
+        byUsername.clear();
+    }
+
+    private Optional<CachedEmployee> load(Supplier<Optional<Employee>> query) {
+        return readOnly.execute(status -> query.get().map(CachedEmployee::new));
+    }
+
+    private void put(CachedEmployee employee) {
+        evictIfFull(byId);
+        evictIfFull(byUsername);
+        byId.put(employee.getId(), employee);
+        byUsername.put(key(employee.getUsername()), employee);
+    }
+
+    private void evictIfFull(Map<?, ?> map) {
+        Iterator<?> iterator = map.keySet().iterator();
+        while (map.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static String key(String username) {
+        return username == null || username.isBlank() ? null : username;
+    }
+
+    private record NotFound(long expiresAt) {
+    }
+}
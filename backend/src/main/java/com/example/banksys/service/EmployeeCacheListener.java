@@ -0,0 +1,52 @@
+package com.example.banksys.service;
+
+import com.example.banksys.model.Employee;
+import com.example.banksys.model.Role;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Сбрасывает {@link EmployeeCache} при изменении сотрудников и ролей.
+ * Сброс делается сразу и ещё раз после коммита, чтобы параллельное чтение
+ * старой версии из БД до коммита не осталось в кэше.
+ */
+public class EmployeeCacheListener {
+
+    private final ObjectProvider<EmployeeCache> employeeCache;
+
+    public EmployeeCacheListener(ObjectProvider<EmployeeCache> employeeCache) {
+        this.employeeCache = employeeCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        EmployeeCache cache = employeeCache.getIfAvailable();
+        if (cache == null) {
+            return;
+        }
+        Runnable invalidate;
+        if (entity instanceof Employee employee) {
+            invalidate = () -> cache.invalidate(employee);
+        } else if (entity instanceof Role) {
+            // Роль могла быть у любого сотрудника.
+            invalidate = cache::invalidateAll;
+        } else {
+            return;
+        }
+        invalidate.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.banksys.service;
+
+import com.example.banksys.dto.EmployeeDto;
+import com.example.banksys.dto.EmployeePage;
+import com.example.banksys.dto.EmployeeSummary;
+import com.example.banksys.mapper.EmployeeMapper;
+import com.example.banksys.repository.EmployeeRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Список сотрудников для подсказок получателей. Роли собираются одним
+ * запросом-проекцией без загрузки сущностей, поэтому нет запроса ролей
+ * на каждого сотрудника. Страницы — по курсору (id последнего сотрудника).
+ */
+@Service
+public class EmployeeDirectoryService {
+
+    private static final int DEFAULT_PAGE = 100;
+    private static final int MAX_PAGE = 1000;
+
+    private final EmployeeRepository employeeRepository;
+    private final TransactionTemplate readOnly;
+
+    public EmployeeDirectoryService(EmployeeRepository employeeRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.employeeRepository = employeeRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    public EmployeePage page(Long after, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE : limit;
+        if (pageSize <= 0 || pageSize > MAX_PAGE) {
+            throw new IllegalArgumentException("limit должен быть от 1 до " + MAX_PAGE);
+        }
+        // Берём на одну строку больше, чтобы понять, есть ли следующая страница.
+        List<EmployeeSummary> rows = employeeRepository.findSummariesAfter(
+                after == null ? 0 : after, Limit.of(pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<EmployeeDto> items = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (int i = 0; i < rows.size() && i < pageSize; i++) {
+            items.add(EmployeeMapper.toDto(rows.get(i)));
+        }
+        Long nextCursor = hasMore ? items.get(items.size() - 1).getId() : null;
+        return new EmployeePage(items, nextCursor);
+    }
+
+    /**
+     * Отдаёт всех сотрудников по одному, читая результат курсором БД:
+     * в памяти не держится ни весь список, ни сущности.
+     */
+    public void forEach(Consumer<EmployeeDto> consumer) {
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<EmployeeSummary> rows = employeeRepository.streamSummaries()) {
+                rows.forEach(row -> consumer.accept(EmployeeMapper.toDto(row)));
+            }
+        });
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.banksys.service;
+
+import com.example.banksys.dto.TransferHistoryItem;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ограниченный append-only журнал истории: кольцо чанков фиксированного размера.
+ * Позиция записи — монотонный long, поэтому переход к курсору — O(1),
+ * а самые старые чанки вытесняются, когда журнал превышает лимит хранения.
+ * Кольцо растёт удвоением до лимита по мере заполнения, так что журнал
+ * с парой записей занимает один чанк, а не весь лимит.
+ * Запись в чанк и чтение не берут блокировок; блокировка — только на установку
+ * нового чанка (раз в {@value #CHUNK_SIZE} записей) и на {@link #trimBefore}.
+ */
+final class HistoryLog {
+
+    private static final int CHUNK_SHIFT = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int INITIAL_CHUNKS = 2;
+
+    private final AtomicLong tail = new AtomicLong();
+    // Сколько чанков кольцо может удерживать; индекс чанка — его номер по модулю длины кольца.
+    private final int capacity;
+    private volatile AtomicReferenceArray<Chunk> ring;
+    // Позиции ниже floor отрезаны trimBefore.
+    private volatile long floor;
+
+    HistoryLog(int retention) {
+        int chunks = Math.max(1, (retention + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        // +1 чанк, чтобы заполняемый чанк не вытеснял последний из удерживаемых.
+        this.capacity = chunks + 1;
+        this.ring = new AtomicReferenceArray<>(Math.min(capacity, INITIAL_CHUNKS));
+    }
+
+    long reserve() {
+        return tail.getAndIncrement();
+    }
+
+    void publish(long position, TransferHistoryItem item) {
+        Chunk chunk = chunkForWrite(position >>> CHUNK_SHIFT);
+        if (chunk != null) {
+            chunk.slots.set((int) (position & CHUNK_MASK), item);
+        }
+    }
+
+    long append(TransferHistoryItem item) {
+        long position = reserve();
+        publish(position, item);
+        return position;
+    }
+
+    /** Позиция, следующая за последней зарезервированной записью. */
+    long tail() {
+        return tail.get();
+    }
+
+    /** Самая старая позиция, которая ещё может находиться в кольце. */
+    long head() {
+        long end = tail.get();
+        if (end == 0) {
+            return 0;
+        }
+        long oldestChunk = oldestRetainedChunk(end);
+        return Math.max(oldestChunk <= 0 ? 0 : oldestChunk << CHUNK_SHIFT, floor);
+    }
+
+    /** Запись по позиции либо null, если она вытеснена или ещё не опубликована. */
+    TransferHistoryItem get(long position) {
+        if (position < 0) {
+            return null;
+        }
+        long chunkNo = position >>> CHUNK_SHIFT;
+        AtomicReferenceArray<Chunk> chunks = ring;
+        Chunk chunk = chunks.get((int) (chunkNo % chunks.length()));
+        if (chunk == null || chunk.no != chunkNo) {
+            return null;
+        }
+        return chunk.slots.get((int) (position & CHUNK_MASK));
+    }
+
+    /**
+     * Отрезает целые чанки, все записи которых имеют id меньше {@code minId}
+     * (вытеснены из общего журнала). Возвращает true, если в журнале не осталось
+     * ни одной такой записи, — тогда его можно удалить целиком.
+     * Вызывающий гарантирует, что параллельно в журнал не пишут.
+     */
+    synchronized boolean trimBefore(long minId) {
+        long end = tail.get();
+        if (end == 0) {
+            return true;
+        }
+        TransferHistoryItem newest = get(end - 1);
+        if (newest != null && newest.getId() < minId) {
+            return true;
+        }
+        long newestChunk = (end - 1) >>> CHUNK_SHIFT;
+        AtomicReferenceArray<Chunk> chunks = ring;
+        long cut = floor;
+        for (int i = 0; i < chunks.length(); i++) {
+            Chunk chunk = chunks.get(i);
+            if (chunk == null || chunk.no == newestChunk) {
+                continue;
+            }
+            TransferHistoryItem last = chunk.slots.get(CHUNK_MASK);
+            if (last != null && last.getId() < minId) {
+                chunks.set(i, null);
+                cut = Math.max(cut, (chunk.no + 1) << CHUNK_SHIFT);
+            }
+        }
+        floor = cut;
+        return false;
+    }
+
+    private long oldestRetainedChunk(long end) {
+        return ((end - 1) >>> CHUNK_SHIFT) - (capacity - 1);
+    }
+
+    private Chunk chunkForWrite(long chunkNo) {
+        AtomicReferenceArray<Chunk> chunks = ring;
+        Chunk current = chunks.get((int) (chunkNo % chunks.length()));
+        if (current != null && current.no == chunkNo) {
+            return current;
+        }
+        return install(chunkNo);
+    }
+
+    private synchronized Chunk install(long chunkNo) {
+        while (true) {
+            AtomicReferenceArray<Chunk> chunks = ring;
+            int index = (int) (chunkNo % chunks.length());
+            Chunk current = chunks.get(index);
+            if (current != null && current.no == chunkNo) {
+                return current;
+            }
+            long oldest = oldestRetainedChunk(tail.get());
+            if (chunkNo < oldest) {
+                // Запись опоздала настолько, что её чанк уже вытеснен.
+                return null;
+            }
+            if (current == null || current.no < oldest) {
+                Chunk created = new Chunk(chunkNo);
+                chunks.set(index, created);
+                return created;
+            }
+            // Слот занят удерживаемым чанком — кольцо ещё не доросло до лимита.
+            ring = grow(chunks, oldest);
+        }
+    }
+
+    /**
+     * Копия кольца вдвое длиннее (не длиннее лимита) с удерживаемыми чанками.
+     * Сами чанки общие, поэтому запись в них без блокировки не теряется.
+     */
+    private AtomicReferenceArray<Chunk> grow(AtomicReferenceArray<Chunk> chunks, long oldest) {
+        int length = chunks.length();
+        while (true) {
+            length = Math.min(capacity, length * 2);
+            AtomicReferenceArray<Chunk> grown = new AtomicReferenceArray<>(length);
+            boolean fits = true;
+            for (int i = 0; i < chunks.length() && fits; i++) {
+                Chunk chunk = chunks.get(i);
+                if (chunk == null || chunk.no < oldest) {
+                    continue;
+                }
+                int index = (int) (chunk.no % length);
+                fits = grown.get(index) == null;
+                grown.set(index, chunk);
+            }
+            // На полной длине удерживаемые чанки — подряд идущие номера и не сталкиваются.
+            if (fits || length == capacity) {
+                return grown;
+            }
+        }
+    }
+
+    private static final class Chunk {
+        private final long no;
+        private final AtomicReferenceArray<TransferHistoryItem> slots = new AtomicReferenceArray<>(CHUNK_SIZE);
+
+        private Chunk(long no) {
+            this.no = no;
+        }
+    }
+}
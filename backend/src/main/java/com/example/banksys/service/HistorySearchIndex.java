@@ -0,0 +1,269 @@
+package com.example.banksys.service;
+
+import com.example.banksys.dto.TransferHistoryItem;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * Инвертированный индекс истории: слово описания, логин участника или номер счёта -> id записей,
+ * плюс корзины по сумме (степени двойки в тиынах). Обновляется при каждой записи
+ * в историю. Списки id только дописываются; вытесненные из журнала id отрезаются
+ * при росте списка и периодической чистке, а пустые списки удаляются.
+ * <p>
+ * Запрос берёт самый короткий из подходящих списков, идёт по нему от новых
+ * записей к старым и проверяет остальные условия по самой записи, пока не наберёт
+ * {@code limit} совпадений.
+ */
+final class HistorySearchIndex {
+
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int AMOUNT_BUCKETS = 64;
+    // Раз в 65536 записей чистим все списки от вытесненных id.
+    private static final long SWEEP_MASK = (1 << 16) - 1;
+
+    private final Map<String, Postings> postingsByToken = new ConcurrentHashMap<>();
+    private final Postings[] amountBuckets = new Postings[AMOUNT_BUCKETS];
+
+    HistorySearchIndex() {
+        for (int i = 0; i < AMOUNT_BUCKETS; i++) {
+            amountBuckets[i] = new Postings();
+        }
+    }
+
+    /** Индексирует запись; {@code head} — самый старый id, ещё хранящийся в журнале. */
+    void add(TransferHistoryItem item, long head) {
+        long id = item.getId();
+        for (String token : tokens(item)) {
+            while (true) {
+                Postings postings = postingsByToken.computeIfAbsent(token, k -> new Postings());
+                if (postings.add(id, head)) {
+                    break;
+                }
+                // Список только что признан пустым и удаляется чисткой — создаём новый.
+                postingsByToken.remove(token, postings);
+            }
+        }
+        amountBuckets[bucket(minorUnits(item.getAmount()))].add(id, head);
+        if ((id & SWEEP_MASK) == SWEEP_MASK) {
+            sweep(head);
+        }
+    }
+
+    /**
+     * Записи от новых к старым, в которых есть все слова {@code terms} (слово описания,
+     * логин участника или номер счёта) и сумма в {@code [minMinor, maxMinor]}.
+     */
+    List<TransferHistoryItem> search(List<String> terms,
+                                     long minMinor,
+                                     long maxMinor,
+                                     int limit,
+                                     LongFunction<TransferHistoryItem> lookup) {
+        Candidates candidates = null;
+        // Совпадение по единственному слову гарантирует сам список; иначе слова проверяем по записи.
+        boolean verifyTerms = terms.size() > 1;
+        for (String term : terms) {
+            Postings postings = postingsByToken.get(term);
+            if (postings == null) {
+                return List.of();
+            }
+            Candidates byTerm = new Candidates(List.of(postings.view()));
+            if (candidates == null || byTerm.size < candidates.size) {
+                candidates = byTerm;
+            }
+        }
+        boolean amountFiltered = minMinor > 0 || maxMinor < Long.MAX_VALUE;
+        if (amountFiltered) {
+            List<View> views = new ArrayList<>();
+            for (int b = bucket(minMinor); b <= bucket(maxMinor); b++) {
+                views.add(amountBuckets[b].view());
+            }
+            Candidates byAmount = new Candidates(views);
+            if (candidates == null || byAmount.size < candidates.size) {
+                candidates = byAmount;
+                verifyTerms = !terms.isEmpty();
+            }
+        }
+        if (candidates == null) {
+            return List.of();
+        }
+
+        List<TransferHistoryItem> result = new ArrayList<>(Math.min(limit, candidates.size));
+        long id;
+        while (result.size() < limit && (id = candidates.next()) >= 0) {
+            TransferHistoryItem item = lookup.apply(id);
+            if (item == null) {
+                continue;
+            }
+            long amount = minorUnits(item.getAmount());
+            if (amount < minMinor || amount > maxMinor) {
+                continue;
+            }
+            if (!verifyTerms || tokens(item).containsAll(terms)) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /** Слова запроса в том же виде, в каком индексируются описания. */
+    static List<String> terms(String query) {
+        Set<String> terms = new HashSet<>();
+        tokenize(query, terms);
+        return new ArrayList<>(terms);
+    }
+
+    static long minorUnits(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).longValue();
+    }
+
+    private void sweep(long head) {
+        for (Map.Entry<String, Postings> entry : postingsByToken.entrySet()) {
+            if (entry.getValue().retireIfEmpty(head)) {
+                postingsByToken.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Postings bucket : amountBuckets) {
+            bucket.compact(head);
+        }
+    }
+
+    private static Set<String> tokens(TransferHistoryItem item) {
+        Set<String> result = new HashSet<>();
+        tokenize(item.getDescription(), result);
+        addUsername(item.getFromUsername(), result);
+        addUsername(item.getToUsername(), result);
+        tokenize(item.getFromAccountNumber(), result);
+        tokenize(item.getToAccountNumber(), result);
+        return result;
+    }
+
+    private static void addUsername(String username, Set<String> result) {
+        if (username != null && !username.isBlank()) {
+            // Логин целиком и по частям: запрос «ivan.petrov» разбивается на «ivan» и «petrov».
+            result.add(username.trim().toLowerCase(Locale.ROOT));
+            tokenize(username, result);
+        }
+    }
+
+    private static void tokenize(String text, Set<String> result) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= MIN_TOKEN_LENGTH) {
+                    result.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+    }
+
+    private static int bucket(long minor) {
+        return minor <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(minor);
+    }
+
+    private record View(long[] ids, int size) {
+    }
+
+    /**
+     * Список id в порядке добавления. Массив не меняется на месте: при чистке
+     * создаётся новый, поэтому читатель, получивший (массив, размер), читает его без блокировки.
+     */
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+        private int size;
+        private boolean retired;
+
+        synchronized boolean add(long id, long head) {
+            if (retired) {
+                return false;
+            }
+            if (size == ids.length) {
+                compact(head);
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+            }
+            ids[size++] = id;
+            return true;
+        }
+
+        synchronized View view() {
+            return new View(ids, size);
+        }
+
+        /** Отрезает вытесненные id в начале списка (id пишутся почти по возрастанию). */
+        synchronized void compact(long head) {
+            int from = 0;
+            while (from < size && ids[from] < head) {
+                from++;
+            }
+            if (from > 0) {
+                int remaining = size - from;
+                ids = Arrays.copyOfRange(ids, from, from + Math.max(4, remaining * 2));
+                size = remaining;
+            }
+        }
+
+        synchronized boolean retireIfEmpty(long head) {
+            compact(head);
+            if (size == 0) {
+                retired = true;
+            }
+            return retired;
+        }
+    }
+
+    /** Объединение нескольких списков от больших id к меньшим. */
+    private static final class Candidates {
+
+        private final List<View> views;
+        private final int[] positions;
+        private final int size;
+
+        private Candidates(List<View> views) {
+            this.views = views;
+            this.positions = new int[views.size()];
+            int total = 0;
+            for (int i = 0; i < views.size(); i++) {
+                positions[i] = views.get(i).size() - 1;
+                total += views.get(i).size();
+            }
+            this.size = total;
+        }
+
+        /** Следующий id или -1, если списки исчерпаны. */
+        long next() {
+            int best = -1;
+            long bestId = -1;
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] >= 0) {
+                    long id = views.get(i).ids()[positions[i]];
+                    if (id > bestId) {
+                        bestId = id;
+                        best = i;
+                    }
+                }
+            }
+            if (best >= 0) {
+                positions[best]--;
+            }
+            return bestId;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.banksys.service;
+
+import com.example.banksys.metrics.BankMetrics;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Ответы на запросы с заголовком {@code Idempotency-Key}: повтор с тем же ключом
+ * получает сохранённый ответ, а не проводит операцию второй раз.
+ * <p>
+ * Таблица — ConcurrentHashMap без блокировок: первый запрос занимает ключ через
+ * putIfAbsent, параллельные дубликаты ждут его результата на CompletableFuture.
+ * Ответ хранится {@code banksys.idempotency.ttl-ms}. Завершённые записи стоят в
+ * очереди в порядке завершения — при одинаковом TTL это и порядок истечения:
+ * просроченные снимаются с её головы, а при переполнении {@code max-size}
+ * вытесняются те, что истекли бы первыми. Поиск и чистка — O(1) на запись.
+ * Ответы 5xx и исключения не сохраняются — такой запрос можно повторить.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Expiring> expiry = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final long ttlMillis;
+    private final int maxSize;
+    private final long waitMillis;
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter coalesced;
+    private final Counter mismatched;
+
+    public IdempotencyStore(BankMetrics metrics,
+                            @Value("${banksys.idempotency.ttl-ms:600000}") long ttlMillis,
+                            @Value("${banksys.idempotency.max-size:100000}") int maxSize,
+                            @Value("${banksys.idempotency.wait-ms:30000}") long waitMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("banksys.idempotency.max-size должен быть больше нуля");
+        }
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+        this.waitMillis = waitMillis;
+        String description = "Запросы с Idempotency-Key";
+        this.executed = metrics.counter("banksys.idempotency", description, "result", "executed");
+        this.replayed = metrics.counter("banksys.idempotency", description, "result", "replayed");
+        this.coalesced = metrics.counter("banksys.idempotency", description, "result", "coalesced");
+        this.mismatched = metrics.counter("banksys.idempotency", description, "result", "mismatch");
+        metrics.gauge("banksys.idempotency.size", "Сохранённых ответов по Idempotency-Key", entries, Map::size);
+    }
+
+    /**
+     * Выполняет {@code action} один раз на пару (scope, key). {@code fingerprint} —
+     * нормализованные поля тела запроса, сравниваются через equals: тот же ключ
+     * с другим телом отклоняется с 422. Без ключа действие просто выполняется.
+     */
+    public ResponseEntity<?> execute(String key,
+                                     String scope,
+                                     List<?> fingerprint,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(HEADER + " должен быть непустым и не длиннее " + MAX_KEY_LENGTH);
+        }
+
+        String id = scope + ':' + key;
+        Entry entry = new Entry(fingerprint);
+        Entry existing;
+        while ((existing = entries.putIfAbsent(id, entry)) != null) {
+            if (!existing.isExpired(System.currentTimeMillis())) {
+                return replay(existing, fingerprint);
+            }
+            entries.remove(id, existing);
+        }
+        evict();
+
+        executed.increment();
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            entries.remove(id, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            entries.remove(id, entry);
+        } else {
+            entry.expiresAt = System.currentTimeMillis() + ttlMillis;
+            expiry.add(new Expiring(id, entry));
+        }
+        entry.result.complete(response);
+        return response;
+    }
+
+    private ResponseEntity<?> replay(Entry existing, List<?> fingerprint) {
+        if (!existing.fingerprint.equals(fingerprint)) {
+            mismatched.increment();
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT)
+                    .body(HEADER + " уже использован с другим запросом");
+        }
+        boolean inFlight = !existing.result.isDone();
+        ResponseEntity<?> stored;
+        try {
+            stored = existing.result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Запрос с этим " + HEADER + " ещё выполняется");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Запрос с этим " + HEADER + " ещё выполняется");
+        } catch (ExecutionException e) {
+            // Первый запрос упал — его ответ не сохранён, ошибка отдаётся и ждавшим дубликатам.
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        (inFlight ? coalesced : replayed).increment();
+        return ResponseEntity.status(stored.getStatusCode())
+                .headers(stored.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.getBody());
+    }
+
+    /**
+     * Снимает с головы очереди просроченные записи, а при переполнении — и ближайшие
+     * к истечению. Выполняющиеся запросы в очереди не стоят и не вытесняются.
+     * Чистит один поток за раз, остальные не ждут.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Expiring head;
+            while ((head = expiry.peek()) != null && (head.entry.isExpired(now) || entries.size() > maxSize)) {
+                expiry.poll();
+                // Запись могла быть уже заменена новой под тем же ключом — её не трогаем.
+                entries.remove(head.id, head.entry);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private record Expiring(String id, Entry entry) {
+    }
+
+    private static final class Entry {
+        private final List<?> fingerprint;
+        private final CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+        // Пока запрос выполняется, запись не истекает.
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private Entry(List<?> fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.banksys.service;
+
+/** Недостаточно средств для списания; контроллеры отвечают 409. */
+public class InsufficientFundsException extends IllegalStateException {
+
+    public InsufficientFundsException(String message) {
+        super(message);
+    }
+}
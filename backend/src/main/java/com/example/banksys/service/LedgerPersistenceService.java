@@ -0,0 +1,237 @@
+package com.example.banksys.service;
+
+import com.example.banksys.metrics.BankMetrics;
+import com.example.banksys.model.Account;
+import com.example.banksys.model.Transfer;
+import com.example.banksys.repository.AccountRepository;
+import com.example.banksys.repository.EmployeeRepository;
+import com.example.banksys.repository.LedgerChangeRepository;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Хранение счетов и проводок в Postgres для запуска нескольких экземпляров.
+ * Конкурентные изменения одного счёта разрешаются через {@code @Version}:
+ * вместо блокировки строк транзакция просто повторяется при конфликте версий.
+ * Сами проводки пишутся асинхронно через {@link TransferHistoryWriter}.
+ * Каждая изменяющая счета транзакция увеличивает счётчик в {@code ledger_changes},
+ * по которому другие экземпляры узнают, что пора перечитать счета.
+ * Включается свойством {@code banksys.ledger.jpa.enabled}.
+ */
+@Service
+public class LedgerPersistenceService {
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int MAX_DESCRIPTION = 255;
+    // Ячейки счётчика изменений: транзакции ждут друг друга на строке ячейки только при совпадении.
+    private static final int CHANGE_SLOTS = 16;
+
+    private final AccountRepository accountRepository;
+    private final EmployeeRepository employeeRepository;
+    private final LedgerChangeRepository changeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long refreshIntervalMillis;
+    private final Counter optimisticRetries;
+
+    public LedgerPersistenceService(AccountRepository accountRepository,
+                                    EmployeeRepository employeeRepository,
+                                    LedgerChangeRepository changeRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${banksys.ledger.jpa.enabled:false}") boolean enabled,
+                                    @Value("${banksys.ledger.refresh-ms:1000}") long refreshIntervalMillis,
+                                    BankMetrics metrics) {
+        this.accountRepository = accountRepository;
+        this.employeeRepository = employeeRepository;
+        this.changeRepository = changeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.optimisticRetries = metrics.counter("banksys.ledger.optimistic.retries",
+                "Повторы транзакций из-за конфликта версий счёта");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Как часто подтягивать изменения счетов, сделанные другими экземплярами. */
+    public long refreshIntervalMillis() {
+        return refreshIntervalMillis;
+    }
+
+    /** Создаёт ячейки счётчика изменений, если их ещё нет; вызывается до первого изменения счетов. */
+    public void initChangeCount() {
+        transactionTemplate.executeWithoutResult(status -> changeRepository.createSlots(CHANGE_SLOTS));
+    }
+
+    /**
+     * Счётчик изменений счетов в БД: растёт в той же транзакции, что и сами изменения,
+     * поэтому новое значение видно не раньше изменённых строк. Читает {@value #CHANGE_SLOTS}
+     * строк независимо от числа счетов.
+     */
+    public long changeCount() {
+        return changeRepository.total();
+    }
+
+    public List<Account> findAllAccounts() {
+        return accountRepository.findAllByOrderByIdAsc();
+    }
+
+    public Optional<Account> findAccount(long accountId) {
+        return accountRepository.findById(accountId);
+    }
+
+    public Optional<Account> findAccountByNumber(String number) {
+        return accountRepository.findByNumber(number);
+    }
+
+    public List<Account> findAccountsByOwner(String ownerUsername) {
+        return accountRepository.findAllByOwnerUsernameOrderByIdAsc(ownerUsername);
+    }
+
+    public Account openAccount(String ownerUsername,
+                               String title,
+                               String currency,
+                               long balance,
+                               long loanDebt,
+                               LongFunction<String> numberGenerator) {
+        return transactionTemplate.execute(status -> {
+            Account account = insertAccount(ownerUsername, title, currency, balance, loanDebt, numberGenerator);
+            countChange();
+            return account;
+        });
+    }
+
+    /**
+     * Открывает стартовый счёт, только если у сотрудника ещё нет ни одного. Строка
+     * сотрудника блокируется до конца транзакции, поэтому экземпляры, стартующие
+     * одновременно, не создадут ему по счёту каждый. Возвращает null, если счёт уже есть.
+     */
+    public Account openInitialAccount(String ownerUsername,
+                                      String title,
+                                      String currency,
+                                      long balance,
+                                      long loanDebt,
+                                      LongFunction<String> numberGenerator) {
+        return transactionTemplate.execute(status -> {
+            employeeRepository.lockByUsername(ownerUsername);
+            if (accountRepository.existsByOwnerUsername(ownerUsername)) {
+                return null;
+            }
+            Account account = insertAccount(ownerUsername, title, currency, balance, loanDebt, numberGenerator);
+            countChange();
+            return account;
+        });
+    }
+
+    private Account insertAccount(String ownerUsername,
+                                  String title,
+                                  String currency,
+                                  long balance,
+                                  long loanDebt,
+                                  LongFunction<String> numberGenerator) {
+        Account account = accountRepository.save(new Account(title, currency, ownerUsername, balance, loanDebt));
+        // id из последовательности известен сразу после persist, INSERT уйдёт при коммите уже с номером.
+        account.setNumber(numberGenerator.apply(account.getId()));
+        return account;
+    }
+
+    /**
+     * Переводит сумму между счетами в одной транзакции.
+     * Возвращает актуальные состояния счетов отправителя и получателя.
+     */
+    public List<Account> transfer(long fromAccountId, long toAccountId, long amount) {
+        return withRetry(() -> transactionTemplate.execute(status -> {
+            Account from = requireAccount(fromAccountId);
+            Account to = requireAccount(toAccountId);
+            if (from.getBalance() < amount) {
+                throw new InsufficientFundsException("Недостаточно средств на счёте отправителя");
+            }
+            from.setBalance(from.getBalance() - amount);
+            to.setBalance(to.getBalance() + amount);
+            countChange();
+            return List.of(from, to);
+        }));
+    }
+
+    /**
+     * Проводит пакет взаимозачётом в одной транзакции: каждому счёту применяется
+     * его нетто-изменение.
+     */
+    public List<Account> settle(Map<Long, Long> netByAccount) {
+        return withRetry(() -> transactionTemplate.execute(status -> {
+            List<Account> changed = new ArrayList<>(netByAccount.size());
+            for (Map.Entry<Long, Long> entry : netByAccount.entrySet()) {
+                Account account = requireAccount(entry.getKey());
+                long balance = account.getBalance() + entry.getValue();
+                if (balance < 0) {
+                    throw new InsufficientFundsException("Пакет отклонён: недостаточно средств на счёте " + account.getId());
+                }
+                account.setBalance(balance);
+                changed.add(account);
+            }
+            countChange();
+            return changed;
+        }));
+    }
+
+    public Account loan(long accountId, long amount, long totalToRepay) {
+        return withRetry(() -> transactionTemplate.execute(status -> {
+            Account account = requireAccount(accountId);
+            account.setBalance(account.getBalance() + amount);
+            account.setLoanDebt(account.getLoanDebt() + totalToRepay);
+            countChange();
+            return account;
+        }));
+    }
+
+    /**
+     * Увеличивает случайную ячейку счётчика в текущей транзакции. Откат транзакции
+     * (в том числе конфликт версий) откатывает и счётчик.
+     */
+    private void countChange() {
+        if (changeRepository.increment(ThreadLocalRandom.current().nextInt(CHANGE_SLOTS)) == 0) {
+            throw new IllegalStateException("Счётчик изменений счетов не инициализирован");
+        }
+    }
+
+    private Account requireAccount(long accountId) {
+        return accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Счёт не найден: " + accountId));
+    }
+
+    private <T> T withRetry(Supplier<T> action) {
+        OptimisticLockingFailureException last = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                optimisticRetries.increment();
+                last = e;
+            }
+        }
+        throw new IllegalStateException("Счёт одновременно изменяется другим запросом, повторите позже", last);
+    }
+
+    /** Обрезает описание под размер колонки перед записью проводки. */
+    public static Transfer truncate(Transfer transfer) {
+        String description = transfer.getDescription();
+        if (description != null && description.length() > MAX_DESCRIPTION) {
+            transfer.setDescription(description.substring(0, MAX_DESCRIPTION));
+        }
+        return transfer;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.banksys.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Конкурентная таблица {@code long -> V} для плотных последовательных ключей (id счетов).
+ * Значения лежат в сегментах по 4096 слотов, слот — сам id, поэтому поиск — два
+ * чтения массива без упаковки ключа в Long и без хеширования. Каталог сегментов
+ * растёт копированием под блокировкой (редко, раз на 4096 новых id), чтение
+ * и запись в существующие сегменты идут без блокировок.
+ * Отрицательные и слишком большие id (разреженные ключи) уходят в обычный
+ * {@link ConcurrentHashMap}, чтобы каталог не раздувался.
+ */
+public final class LongTable<V> {
+
+    private static final int SEGMENT_SHIFT = 12;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    // Каталог до 2^19 сегментов (4 МБ ссылок) покрывает 2^31 id.
+    private static final long DENSE_LIMIT = 1L << 31;
+
+    private volatile AtomicReferenceArray<AtomicReferenceArray<V>> directory = new AtomicReferenceArray<>(0);
+    private final Map<Long, V> sparse = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public V get(long id) {
+        if (id < 0 || id >= DENSE_LIMIT) {
+            return sparse.get(id);
+        }
+        AtomicReferenceArray<AtomicReferenceArray<V>> dir = directory;
+        int segmentNo = (int) (id >>> SEGMENT_SHIFT);
+        if (segmentNo >= dir.length()) {
+            return null;
+        }
+        AtomicReferenceArray<V> segment = dir.get(segmentNo);
+        return segment == null ? null : segment.get((int) (id & SEGMENT_MASK));
+    }
+
+    /** Кладёт значение и возвращает предыдущее (или null). */
+    public V put(long id, V value) {
+        V previous;
+        if (id < 0 || id >= DENSE_LIMIT) {
+            previous = sparse.put(id, value);
+        } else {
+            previous = segmentFor(id).getAndSet((int) (id & SEGMENT_MASK), value);
+        }
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        return previous;
+    }
+
+    /** Кладёт значение, только если слот пуст; иначе возвращает уже лежащее там. */
+    public V putIfAbsent(long id, V value) {
+        V existing;
+        if (id < 0 || id >= DENSE_LIMIT) {
+            existing = sparse.putIfAbsent(id, value);
+        } else {
+            existing = segmentFor(id).compareAndExchange((int) (id & SEGMENT_MASK), null, value);
+        }
+        if (existing == null) {
+            size.incrementAndGet();
+        }
+        return existing;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Обходит значения по возрастанию id (разреженные — в конце, без порядка).
+     * Конкурентные вставки могут как попасть в обход, так и нет.
+     */
+    public void forEach(Consumer<? super V> action) {
+        AtomicReferenceArray<AtomicReferenceArray<V>> dir = directory;
+        for (int s = 0; s < dir.length(); s++) {
+            AtomicReferenceArray<V> segment = dir.get(s);
+            if (segment == null) {
+                continue;
+            }
+            for (int i = 0; i < SEGMENT_SIZE; i++) {
+                V value = segment.get(i);
+                if (value != null) {
+                    action.accept(value);
+                }
+            }
+        }
+        sparse.values().forEach(action);
+    }
+
+    /** Очищает таблицу. Не атомарна относительно параллельных вставок — вызывается при пересидировании. */
+    public synchronized void clear() {
+        directory = new AtomicReferenceArray<>(0);
+        sparse.clear();
+        size.set(0);
+    }
+
+    private AtomicReferenceArray<V> segmentFor(long id) {
+        int segmentNo = (int) (id >>> SEGMENT_SHIFT);
+        AtomicReferenceArray<AtomicReferenceArray<V>> dir = directory;
+        if (segmentNo < dir.length()) {
+            AtomicReferenceArray<V> segment = dir.get(segmentNo);
+            if (segment != null) {
+                return segment;
+            }
+        }
+        return createSegment(segmentNo);
+    }
+
+    private synchronized AtomicReferenceArray<V> createSegment(int segmentNo) {
+        AtomicReferenceArray<AtomicReferenceArray<V>> dir = directory;
+        if (segmentNo >= dir.length()) {
+            // Растим каталог с запасом, чтобы копирований было O(log n).
+            int length = Math.max(segmentNo + 1, dir.length() * 2);
+            AtomicReferenceArray<AtomicReferenceArray<V>> grown = new AtomicReferenceArray<>(length);
+            for (int s = 0; s < dir.length(); s++) {
+                grown.set(s, dir.get(s));
+            }
+            directory = grown;
+            dir = grown;
+        }
+        AtomicReferenceArray<V> segment = dir.get(segmentNo);
+        if (segment == null) {
+            segment = new AtomicReferenceArray<>(SEGMENT_SIZE);
+            dir.set(segmentNo, segment);
+        }
+        return segment;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.banksys.service;
+
+/** Операция запрещена для роли владельца счёта; контроллеры отвечают 409. */
+public class OperationBlockedException extends IllegalStateException {
+
+    public OperationBlockedException(String message) {
+        super(message);
+    }
+}
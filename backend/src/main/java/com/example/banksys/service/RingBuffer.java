@@ -0,0 +1,64 @@
+package com.example.banksys.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ограниченный кольцевой буфер: много производителей, один потребитель.
+ * Производитель занимает слот CAS-ом по общему счётчику и публикует элемент
+ * записью в слот; потребитель читает слоты строго по порядку и останавливается
+ * на первом ещё не опубликованном.
+ */
+final class RingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong producerSequence = new AtomicLong();
+    private volatile long consumerSequence;
+
+    RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    boolean offer(T item) {
+        long sequence;
+        do {
+            sequence = producerSequence.get();
+            if (sequence - consumerSequence >= slots.length()) {
+                return false;
+            }
+        } while (!producerSequence.compareAndSet(sequence, sequence + 1));
+        slots.set((int) (sequence & mask), item);
+        return true;
+    }
+
+    /** Забирает до {@code max} опубликованных элементов; вызывается только потребителем. */
+    int drainTo(List<T> target, int max) {
+        long sequence = consumerSequence;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (sequence & mask);
+            T item = slots.get(index);
+            if (item == null) {
+                break;
+            }
+            slots.set(index, null);
+            target.add(item);
+            sequence++;
+            drained++;
+        }
+        consumerSequence = sequence;
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, producerSequence.get() - consumerSequence);
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.banksys.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Дневные итоги по счетам для выписок: на каждый счёт — массив дней по
+ * возрастанию, на день пять long (эпохальный день, поступления, списания,
+ * число операций, выдача кредитов; суммы в тиынах). Операция обновляет итог
+ * своего дня за O(1), выписка за период — двоичный поиск и проход по дням,
+ * без обхода истории. Дни старше {@code banksys.statement.retention-days}
+ * отрезаются при росте массива.
+ */
+@Component
+public class StatementBook {
+
+    static final int DAY = 0;
+    static final int CREDITED = 1;
+    static final int DEBITED = 2;
+    static final int OPERATIONS = 3;
+    static final int LOANS = 4;
+    static final int FIELDS = 5;
+
+    private final LongTable<Days> byAccount = new LongTable<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final int retentionDays;
+
+    public StatementBook(@Value("${banksys.statement.retention-days:400}") int retentionDays) {
+        if (retentionDays <= 0) {
+            throw new IllegalArgumentException("banksys.statement.retention-days должен быть больше нуля");
+        }
+        this.retentionDays = retentionDays;
+    }
+
+    int retentionDays() {
+        return retentionDays;
+    }
+
+    /** Эпохальный день момента {@code epochMillis} в часовом поясе сервера (как и даты в истории). */
+    long epochDay(long epochMillis) {
+        int offsetSeconds = zone.getRules().getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds();
+        return Math.floorDiv(epochMillis + offsetSeconds * 1000L, 86_400_000L);
+    }
+
+    void transfer(long fromAccountId, long toAccountId, long amount, long createdAtMillis) {
+        long day = epochDay(createdAtMillis);
+        days(fromAccountId).add(day, DEBITED, amount, retentionDays);
+        days(toAccountId).add(day, CREDITED, amount, retentionDays);
+    }
+
+    void loan(long accountId, long amount, long createdAtMillis) {
+        days(accountId).add(epochDay(createdAtMillis), LOANS, amount, retentionDays);
+    }
+
+    /**
+     * Строки дней {@code [fromDay, toDay]} с операциями, подряд по {@link #FIELDS} long;
+     * пустой массив, если операций не было.
+     */
+    long[] range(long accountId, long fromDay, long toDay) {
+        Days days = byAccount.get(accountId);
+        return days == null ? new long[0] : days.range(fromDay, toDay);
+    }
+
+    void clear() {
+        byAccount.clear();
+    }
+
+    private Days days(long accountId) {
+        Days days = byAccount.get(accountId);
+        if (days == null) {
+            Days created = new Days();
+            days = byAccount.putIfAbsent(accountId, created);
+            if (days == null) {
+                days = created;
+            }
+        }
+        return days;
+    }
+
+    /** Дни одного счёта. Блокировка на счёт: обновление — несколько записей в массив. */
+    private static final class Days {
+
+        private long[] rows = new long[FIELDS * 4];
+        private int size;
+
+        synchronized void add(long day, int field, long amount, int retentionDays) {
+            int row = find(day);
+            if (row < 0) {
+                row = insert(-row - 1, day, retentionDays);
+            }
+            int base = row * FIELDS;
+            rows[base + field] += amount;
+            rows[base + OPERATIONS]++;
+        }
+
+        synchronized long[] range(long fromDay, long toDay) {
+            int from = find(fromDay);
+            from = from < 0 ? -from - 1 : from;
+            int to = find(toDay);
+            to = to < 0 ? -to - 1 : to + 1;
+            return to <= from ? new long[0] : Arrays.copyOfRange(rows, from * FIELDS, to * FIELDS);
+        }
+
+        /** Индекс строки дня, либо -(точка вставки) - 1. Операции почти всегда за последний день. */
+        private int find(long day) {
+            if (size > 0 && rows[(size - 1) * FIELDS] == day) {
+                return size - 1;
+            }
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long value = rows[mid * FIELDS];
+                if (value < day) {
+                    low = mid + 1;
+                } else if (value > day) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -low - 1;
+        }
+
+        private int insert(int row, long day, int retentionDays) {
+            if ((size + 1) * FIELDS > rows.length) {
+                // Перед ростом отрезаем дни, вышедшие за срок хранения.
+                long oldest = day - retentionDays;
+                int expired = 0;
+                while (expired < size && rows[expired * FIELDS] < oldest) {
+                    expired++;
+                }
+                if (expired > 0 && expired <= row) {
+                    System.arraycopy(rows, expired * FIELDS, rows, 0, (size - expired) * FIELDS);
+                    Arrays.fill(rows, (size - expired) * FIELDS, size * FIELDS, 0);
+                    size -= expired;
+                    row -= expired;
+                }
+                if ((size + 1) * FIELDS > rows.length) {
+                    rows = Arrays.copyOf(rows, rows.length * 2);
+                }
+            }
+            System.arraycopy(rows, row * FIELDS, rows, (row + 1) * FIELDS, (size - row) * FIELDS);
+            Arrays.fill(rows, row * FIELDS, (row + 1) * FIELDS, 0);
+            rows[row * FIELDS] = day;
+            size++;
+            return row;
+        }
+    }
+}
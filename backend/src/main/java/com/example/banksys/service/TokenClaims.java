@@ -0,0 +1,47 @@
+package com.example.banksys.service;
+
+/**
+ * Проверенное содержимое токена доступа: кто вызывает и с какими ролями.
+ */
+public class TokenClaims {
+
+    private final long employeeId;
+    private final String username;
+    private final String fullName;
+    private final long roleMask;
+    private final long expiresAt;
+
+    public TokenClaims(long employeeId, String username, String fullName, long roleMask, long expiresAt) {
+        this.employeeId = employeeId;
+        this.username = username;
+        this.fullName = fullName;
+        this.roleMask = roleMask;
+        this.expiresAt = expiresAt;
+    }
+
+    public long getEmployeeId() {
+        return employeeId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    /** Битовая маска ролей в формате {@link AuthorizationIndex}. */
+    public long getRoleMask() {
+        return roleMask;
+    }
+
+    /** Момент истечения, секунды Unix-времени. */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean hasRole(long role) {
+        return (roleMask & role) != 0;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.banksys.service;
+
+import com.example.banksys.dto.TransferHistoryItem;
+import com.example.banksys.metrics.BankMetrics;
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Живая лента переводов и кредитов по SSE. Каждая новая запись истории
+ * раскладывается по подписчикам в их ограниченные очереди (без блокировок
+ * в потоке операции), а отправкой клиенту занимается отдельный виртуальный
+ * поток подписчика. Если клиент не успевает и очередь переполнилась, он
+ * получает событие {@code overflow} и отключается — переподключение с
+ * {@code Last-Event-ID} дочитает пропущенное из журнала истории.
+ * Число подписок ограничено {@code banksys.feed.max-subscribers}: место занимается
+ * атомарно до создания подписчика и освобождается, когда его поток завершился.
+ */
+@Component
+public class TransferFeed {
+
+    private final TransferHistoryStore history;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Занятые места, включая отключённых за переполнение, но ещё не закрытых подписчиков.
+    private final AtomicInteger slots = new AtomicInteger();
+    private final Consumer<TransferHistoryItem> listener = this::publish;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long heartbeatMillis;
+    private final Counter overflows;
+
+    public TransferFeed(TransferHistoryStore history,
+                        BankMetrics metrics,
+                        @Value("${banksys.feed.buffer-size:1024}") int bufferSize,
+                        @Value("${banksys.feed.max-subscribers:1000}") int maxSubscribers,
+                        @Value("${banksys.feed.timeout-ms:1800000}") long timeoutMillis,
+                        @Value("${banksys.feed.heartbeat-ms:15000}") long heartbeatMillis) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("banksys.feed.buffer-size должен быть больше нуля");
+        }
+        this.history = history;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.heartbeatMillis = heartbeatMillis;
+        this.overflows = metrics.counter("banksys.feed.overflows",
+                "Подписчики ленты, отключённые из-за переполнения очереди");
+        metrics.gauge("banksys.feed.subscribers", "Открытые подписки на ленту переводов",
+                subscribers, Set::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        history.addListener(listener);
+    }
+
+    @PreDestroy
+    public void stop() {
+        history.removeListener(listener);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+            subscriber.emitter.complete();
+        }
+    }
+
+    /**
+     * Открывает подписку. {@code username} — только записи с участием пользователя,
+     * {@code lastEventId} — сначала дослать записи после этого id из журнала.
+     * Бросает IllegalStateException, если подписчиков уже максимум.
+     */
+    public SseEmitter subscribe(String username, Long lastEventId) {
+        return subscribe(new SseEmitter(timeoutMillis), username, lastEventId);
+    }
+
+    /** Подписка с уже созданным эмиттером (в тестах — записывающим отправленные события). */
+    SseEmitter subscribe(SseEmitter emitter, String username, Long lastEventId) {
+        // Место занимается до проверки: параллельные подписки не проскочат лимит вдвоём.
+        if (slots.incrementAndGet() > maxSubscribers) {
+            slots.decrementAndGet();
+            throw new IllegalStateException("Слишком много подписчиков ленты, повторите позже");
+        }
+        Subscriber subscriber = null;
+        try {
+            subscriber = new Subscriber(emitter, username, lastEventId);
+            Subscriber registered = subscriber;
+            emitter.onCompletion(registered::close);
+            emitter.onTimeout(registered::close);
+            emitter.onError(e -> registered.close());
+            // Регистрируемся до чтения журнала: записи, появившиеся во время досылки, не потеряются.
+            subscribers.add(subscriber);
+            subscriber.thread = Thread.ofVirtual().name("transfer-feed").start(subscriber::run);
+        } catch (RuntimeException | Error e) {
+            if (subscriber != null) {
+                subscriber.close();
+            } else {
+                slots.decrementAndGet();
+            }
+            throw e;
+        }
+        return emitter;
+    }
+
+    private void publish(TransferHistoryItem item) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(item);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final String username;
+        private final Long lastEventId;
+        private final BlockingQueue<TransferHistoryItem> queue = new ArrayBlockingQueue<>(bufferSize);
+        private volatile boolean closed;
+        private volatile boolean overflowed;
+        private volatile Thread thread;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        // Досланное из журнала: живые записи с id ниже replayEnd уже отправлены,
+        // кроме тех, что на момент досылки ещё не были опубликованы.
+        private long replayEnd = -1;
+        private Set<Long> unpublished = Set.of();
+
+        private Subscriber(SseEmitter emitter, String username, Long lastEventId) {
+            this.emitter = emitter;
+            this.username = username;
+            this.lastEventId = lastEventId;
+        }
+
+        private void offer(TransferHistoryItem item) {
+            if (closed || overflowed || !TransferHistoryStore.involves(item, username)) {
+                return;
+            }
+            if (!queue.offer(item)) {
+                overflowed = true;
+                subscribers.remove(this);
+                overflows.increment();
+            }
+        }
+
+        private void run() {
+            try {
+                if (lastEventId != null) {
+                    replay(lastEventId);
+                }
+                while (!closed) {
+                    if (overflowed && queue.isEmpty()) {
+                        emitter.send(SseEmitter.event()
+                                .name("overflow")
+                                .data("Клиент не успевает за лентой, переподключитесь с Last-Event-ID"));
+                        emitter.complete();
+                        return;
+                    }
+                    TransferHistoryItem item = queue.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    if (item == null) {
+                        // Комментарий держит соединение и быстро обнаруживает ушедших клиентов.
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else if (item.getId() >= replayEnd || unpublished.contains(item.getId())) {
+                        send(item);
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Клиент отключился или эмиттер уже завершён.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        private void replay(long after) throws IOException {
+            long end = history.tail();
+            Set<Long> pending = new HashSet<>();
+            for (long id = Math.max(after + 1, history.head()); id < end && !closed; id++) {
+                TransferHistoryItem item = history.get(id);
+                if (item == null) {
+                    // Ещё публикуется — придёт через очередь (или уже вытеснена и не придёт).
+                    pending.add(id);
+                } else if (TransferHistoryStore.involves(item, username)) {
+                    send(item);
+                }
+            }
+            replayEnd = end;
+            unpublished = pending;
+        }
+
+        private void send(TransferHistoryItem item) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(item.getId()))
+                    .name("transfer")
+                    .data(item, MediaType.APPLICATION_JSON));
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            if (released.compareAndSet(false, true)) {
+                slots.decrementAndGet();
+            }
+            Thread worker = thread;
+            if (worker != null && worker != Thread.currentThread()) {
+                worker.interrupt();
+            }
+        }
+    }
+}
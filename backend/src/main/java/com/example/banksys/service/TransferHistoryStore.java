@@ -0,0 +1,250 @@
+package com.example.banksys.service;
+
+import com.example.banksys.dto.TransferHistoryItem;
+import com.example.banksys.dto.TransferHistoryPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * История переводов с индексом по участникам: общий журнал плюс
+ * append-only журнал на каждого пользователя. Выборка по пользователю
+ * пропорциональна его собственным операциям и не блокирует запись.
+ * Каждый журнал ограничен {@code banksys.history.retention} записями,
+ * старые записи вытесняются.
+ * <p>
+ * Общая граница памяти — общий журнал: раз в {@code retention} записей журналы
+ * пользователей отрезаются по его head, а журналы, где не осталось ни одной
+ * хранимой записи, удаляются. Поэтому журналов не больше, чем участников записей
+ * за последние два окна хранения, и каждый держит только эти записи (с точностью
+ * до одного чанка), а не {@code retention} своих.
+ */
+@Component
+public class TransferHistoryStore {
+
+    private final int retention;
+    private volatile HistoryLog all;
+    private volatile HistorySearchIndex searchIndex = new HistorySearchIndex();
+    private final Map<String, HistoryLog> byUser = new ConcurrentHashMap<>();
+    private final List<Consumer<TransferHistoryItem>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextSweep;
+
+    public TransferHistoryStore(@Value("${banksys.history.retention:100000}") int retention) {
+        if (retention <= 0) {
+            throw new IllegalArgumentException("banksys.history.retention должен быть больше нуля");
+        }
+        this.retention = retention;
+        this.all = new HistoryLog(retention);
+        this.nextSweep = new AtomicLong(retention);
+    }
+
+    public void append(TransferHistoryItem item) {
+        HistoryLog log = all;
+        long id = log.reserve();
+        item.setId(id);
+        log.publish(id, item);
+        searchIndex.add(item, log.head());
+
+        String from = key(item.getFromUsername());
+        String to = key(item.getToUsername());
+        if (from != null) {
+            appendToUser(from, item);
+        }
+        if (to != null && !to.equals(from)) {
+            appendToUser(to, item);
+        }
+        long sweepAt = nextSweep.get();
+        if (id >= sweepAt && nextSweep.compareAndSet(sweepAt, id + retention)) {
+            sweepUsers(log.head());
+        }
+        for (Consumer<TransferHistoryItem> listener : listeners) {
+            listener.accept(item);
+        }
+    }
+
+    /**
+     * Подписка на новые записи. Слушатель вызывается в потоке операции сразу после
+     * публикации записи, поэтому не должен блокироваться.
+     */
+    public void addListener(Consumer<TransferHistoryItem> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<TransferHistoryItem> listener) {
+        listeners.remove(listener);
+    }
+
+    /** Позиция, следующая за последней записью общего журнала (id следующей записи). */
+    public long tail() {
+        return all.tail();
+    }
+
+    /** Самая старая позиция общего журнала, которая ещё может быть прочитана. */
+    public long head() {
+        return all.head();
+    }
+
+    /** Запись общего журнала по id, null — если вытеснена или ещё не опубликована. */
+    public TransferHistoryItem get(long id) {
+        return all.get(id);
+    }
+
+    /** Участвует ли пользователь в записи (как отправитель или получатель). */
+    public static boolean involves(TransferHistoryItem item, String username) {
+        String user = key(username);
+        return user == null || user.equals(key(item.getFromUsername())) || user.equals(key(item.getToUsername()));
+    }
+
+    /**
+     * Страница истории от новых к старым. Курсоры — позиции в журнале
+     * (общем или пользователя), их нужно брать из предыдущей страницы.
+     */
+    public TransferHistoryPage page(String username, Long before, Long after, int limit) {
+        HistoryLog log;
+        String key = key(username);
+        if (key == null) {
+            log = all;
+        } else {
+            log = byUser.get(key);
+            if (log == null) {
+                return new TransferHistoryPage(new ArrayList<>(), null, null);
+            }
+        }
+        return after != null ? pageAfter(log, after, limit) : pageBefore(log, before, limit);
+    }
+
+    /**
+     * Обходит записи от старых к новым до позиции, бывшей хвостом на момент вызова:
+     * записи, добавленные во время обхода, в выгрузку не попадают. Память не зависит
+     * от размера журнала. Записи, вытесненные во время обхода или ещё не
+     * опубликованные к моменту чтения, пропускаются.
+     */
+    public void forEach(String username, Consumer<TransferHistoryItem> action) {
+        String key = key(username);
+        HistoryLog log = key == null ? all : byUser.get(key);
+        if (log == null) {
+            return;
+        }
+        long end = log.tail();
+        for (long position = log.head(); position < end; position++) {
+            // head мог сдвинуться, пока писали предыдущие записи: догоняем его, а не читаем пустые слоты.
+            position = Math.max(position, log.head());
+            TransferHistoryItem item = log.get(position);
+            if (item != null) {
+                action.accept(item);
+            }
+        }
+    }
+
+    /**
+     * Поиск по словам описания и логинам участников (все слова должны совпасть)
+     * и по сумме в {@code [minAmount, maxAmount]}; от новых записей к старым.
+     */
+    public List<TransferHistoryItem> search(String query, BigDecimal minAmount, BigDecimal maxAmount, int limit) {
+        HistoryLog log = all;
+        return searchIndex.search(HistorySearchIndex.terms(query),
+                minAmount == null ? 0 : HistorySearchIndex.minorUnits(minAmount),
+                maxAmount == null ? Long.MAX_VALUE : HistorySearchIndex.minorUnits(maxAmount),
+                limit,
+                log::get);
+    }
+
+    /** Сколько записей сейчас хранится в общем журнале (с учётом вытеснения). */
+    public long size() {
+        HistoryLog log = all;
+        return log.tail() - log.head();
+    }
+
+    public void clear() {
+        all = new HistoryLog(retention);
+        searchIndex = new HistorySearchIndex();
+        byUser.clear();
+        nextSweep.set(retention);
+    }
+
+    /** Число журналов пользователей; для тестов границы памяти. */
+    int userLogCount() {
+        return byUser.size();
+    }
+
+    private TransferHistoryPage pageBefore(HistoryLog log, Long before, int limit) {
+        long head = log.head();
+        long position = before == null ? log.tail() - 1 : Math.min(before, log.tail()) - 1;
+        List<TransferHistoryItem> items = new ArrayList<>(limit);
+        long newest = -1;
+        long oldest = -1;
+        for (; position >= head && items.size() < limit; position--) {
+            TransferHistoryItem item = log.get(position);
+            if (item == null) {
+                continue;
+            }
+            if (newest < 0) {
+                newest = position;
+            }
+            oldest = position;
+            items.add(item);
+        }
+        Long nextCursor = oldest > head ? oldest : null;
+        Long prevCursor = newest >= 0 ? newest : (before != null ? before - 1 : null);
+        return new TransferHistoryPage(items, nextCursor, prevCursor);
+    }
+
+    private TransferHistoryPage pageAfter(HistoryLog log, long after, int limit) {
+        long tail = log.tail();
+        long position = Math.max(after + 1, log.head());
+        List<TransferHistoryItem> items = new ArrayList<>(limit);
+        long newest = after;
+        long oldest = -1;
+        for (; position < tail && items.size() < limit; position++) {
+            TransferHistoryItem item = log.get(position);
+            if (item == null) {
+                // Запись ещё публикуется: не перескакиваем её, клиент дочитает на следующем опросе.
+                break;
+            }
+            if (oldest < 0) {
+                oldest = position;
+            }
+            newest = position;
+            items.add(item);
+        }
+        Collections.reverse(items);
+        Long nextCursor = oldest > log.head() ? oldest : null;
+        return new TransferHistoryPage(items, nextCursor, newest);
+    }
+
+    /**
+     * Запись в журнал пользователя идёт под блокировкой его ключа в map, поэтому
+     * чистка не может удалить журнал между его поиском и записью.
+     */
+    private void appendToUser(String key, TransferHistoryItem item) {
+        byUser.compute(key, (k, log) -> {
+            HistoryLog target = log != null ? log : new HistoryLog(retention);
+            target.append(item);
+            return target;
+        });
+    }
+
+    /** Отрезает журналы пользователей по head общего журнала; пустые удаляет. */
+    private void sweepUsers(long head) {
+        for (String key : byUser.keySet()) {
+            byUser.computeIfPresent(key, (k, log) -> log.trimBefore(head) ? null : log);
+        }
+    }
+
+    private static String key(String username) {
+        if (username == null || username.isBlank()) {
+            return null;
+        }
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+}
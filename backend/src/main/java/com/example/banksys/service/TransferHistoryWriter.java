@@ -0,0 +1,182 @@
+package com.example.banksys.service;
+
+import com.example.banksys.metrics.BankMetrics;
+import com.example.banksys.model.Transfer;
+import com.example.banksys.repository.TransferRepository;
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронная запись проводок в БД: перевод только публикует запись в кольцевой
+ * буфер, а фоновый поток забирает их пачками и вставляет одним batch-INSERT.
+ * Работает только в режиме Postgres ({@code banksys.ledger.jpa.enabled=true}); в режиме
+ * журнала проводки в БД не пишутся и сюда не попадают.
+ * Поведение при переполнении задаётся {@code banksys.history.writer.backpressure}:
+ * block — ждать места, drop — отбросить запись, caller-runs — записать в потоке запроса.
+ * Если фоновый поток не запущен или уже остановлен, ждать некого: запись делается
+ * в потоке запроса (а при выключенном режиме Postgres отбрасывается) и считается в метрике.
+ * Глубина очереди и число записанных, отброшенных и потерянных строк видны в метриках
+ * {@code banksys.history.writer.*}.
+ */
+@Component
+public class TransferHistoryWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferHistoryWriter.class);
+
+    public enum Backpressure { BLOCK, DROP, CALLER_RUNS }
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final TransferRepository transferRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final RingBuffer<Transfer> buffer;
+    private final int batchSize;
+    private final Backpressure backpressure;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Counter failedBatches;
+    private final Counter bypassed;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public TransferHistoryWriter(TransferRepository transferRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${banksys.ledger.jpa.enabled:false}") boolean enabled,
+                                 @Value("${banksys.history.writer.capacity:65536}") int capacity,
+                                 @Value("${banksys.history.writer.batch-size:500}") int batchSize,
+                                 @Value("${banksys.history.writer.backpressure:block}") String backpressure,
+                                 BankMetrics metrics) {
+        this.transferRepository = transferRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.buffer = new RingBuffer<>(capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.backpressure = Backpressure.valueOf(backpressure.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+
+        String rows = "Строки проводок, прошедшие через асинхронную запись";
+        this.written = metrics.counter("banksys.history.writer.rows", rows, "result", "written");
+        this.dropped = metrics.counter("banksys.history.writer.rows", rows, "result", "dropped");
+        this.failed = metrics.counter("banksys.history.writer.rows", rows, "result", "failed");
+        this.failedBatches = metrics.counter("banksys.history.writer.failed.batches",
+                "Пачки проводок, которые не удалось записать в БД");
+        this.bypassed = metrics.counter("banksys.history.writer.bypassed",
+                "Проводки, опубликованные при неработающем фоновом потоке");
+        metrics.gauge("banksys.history.writer.queue.depth", "Проводок в очереди на запись",
+                buffer, RingBuffer::size);
+        metrics.gauge("banksys.history.writer.queue.capacity", "Ёмкость очереди записи проводок",
+                buffer, RingBuffer::capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || worker != null) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drainLoop, "transfer-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void publish(Transfer transfer) {
+        if (!running) {
+            bypass(transfer);
+            return;
+        }
+        if (buffer.offer(transfer)) {
+            LockSupport.unpark(worker);
+            return;
+        }
+        switch (backpressure) {
+            case DROP -> dropped.increment();
+            case CALLER_RUNS -> write(List.of(transfer));
+            case BLOCK -> {
+                LockSupport.unpark(worker);
+                while (!buffer.offer(transfer)) {
+                    if (!running) {
+                        // Поток остановился, пока ждали места, — очередь больше не разберут.
+                        bypass(transfer);
+                        return;
+                    }
+                    LockSupport.parkNanos(FULL_PARK_NANOS);
+                }
+                LockSupport.unpark(worker);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!worker.isAlive()) {
+            // Записи, успевшие попасть в очередь после выхода потока, дописываем здесь.
+            List<Transfer> rest = new ArrayList<>();
+            buffer.drainTo(rest, Integer.MAX_VALUE);
+            if (!rest.isEmpty()) {
+                write(rest);
+            }
+        }
+    }
+
+    /** Фоновый поток не работает: пишем в потоке запроса, а без режима Postgres — отбрасываем. */
+    private void bypass(Transfer transfer) {
+        bypassed.increment();
+        if (enabled) {
+            write(List.of(transfer));
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void drainLoop() {
+        List<Transfer> batch = new ArrayList<>(batchSize);
+        while (true) {
+            batch.clear();
+            if (buffer.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                continue;
+            }
+            if (!running) {
+                return;
+            }
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+    }
+
+    private void write(List<Transfer> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> transferRepository.saveAll(batch));
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            failedBatches.increment();
+            log.error("Не удалось записать {} проводок, пачка потеряна", batch.size(), e);
+        }
+    }
+}
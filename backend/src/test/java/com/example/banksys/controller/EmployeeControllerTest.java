@@ -0,0 +1,70 @@
+package com.example.banksys.controller;
+
+import com.example.banksys.dto.EmployeeDto;
+import com.example.banksys.service.AuthTokenService;
+import com.example.banksys.service.CachedEmployee;
+import com.example.banksys.service.EmployeeCache;
+import com.example.banksys.service.EmployeeDirectoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmployeeControllerTest {
+
+    private final AuthTokenService tokens = new AuthTokenService("test-secret-test-secret-test-secret", 3600);
+    private final EmployeeCache cache = mock(EmployeeCache.class);
+    private final EmployeeController controller = new EmployeeController(
+            tokens, cache, mock(EmployeeDirectoryService.class), JsonMapper.builder().build());
+
+    @Test
+    void returnsCurrentProfileOfActiveEmployee() {
+        CachedEmployee employee = employee(5, "aslan", true);
+        when(cache.findById(5)).thenReturn(Optional.of(employee));
+
+        ResponseEntity<?> response = controller.getMe("Bearer " + tokens.generateToken(employee));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(((EmployeeDto) response.getBody()).getUsername()).isEqualTo("aslan");
+    }
+
+    @Test
+    void deletedEmployeeLosesAccessBeforeTokenExpires() {
+        String token = tokens.generateToken(employee(5, "aslan", true));
+        when(cache.findById(5)).thenReturn(Optional.empty());
+
+        assertThat(controller.getMe("Bearer " + token).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void deactivatedEmployeeLosesAccessBeforeTokenExpires() {
+        String token = tokens.generateToken(employee(5, "aslan", true));
+        CachedEmployee deactivated = employee(5, "aslan", false);
+        when(cache.findById(5)).thenReturn(Optional.of(deactivated));
+
+        assertThat(controller.getMe("Bearer " + token).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void rejectsMissingOrForgedToken() {
+        assertThat(controller.getMe(null).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(controller.getMe("Bearer v1.AAAA.AAAA").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private static CachedEmployee employee(long id, String username, boolean active) {
+        CachedEmployee employee = mock(CachedEmployee.class);
+        when(employee.getId()).thenReturn(id);
+        when(employee.getUsername()).thenReturn(username);
+        when(employee.getFullName()).thenReturn("Аслан");
+        when(employee.isActive()).thenReturn(active);
+        when(employee.getRoles()).thenReturn(List.of("USER"));
+        return employee;
+    }
+}
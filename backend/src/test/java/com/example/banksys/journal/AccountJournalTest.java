@@ -0,0 +1,285 @@
+package com.example.banksys.journal;
+
+import com.example.banksys.metrics.BankMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccountJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<AccountJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        opened.forEach(AccountJournal::close);
+    }
+
+    @Test
+    void recoversEveryRecordAfterRestart() {
+        AccountJournal journal = open(1 << 16);
+        assertThat(journal.replay(new Recorder())).isZero();
+        journal.appendAccountOpened(1, "alice", "Основной", "KZ01", "KZT", 50_000, 0);
+        journal.appendAccountOpened(2, "bob", "Основной", "KZ02", "KZT", 0, 0);
+        journal.appendTransfer(1, 2, 1_250, 1_000L, "обед");
+        journal.appendLoan(2, 10_000, 11_200, 2_000L);
+        journal.close();
+
+        Recorder recovered = new Recorder();
+        assertThat(open(1 << 16).replay(recovered)).isEqualTo(4);
+        assertThat(recovered.events).containsExactly(
+                "open 1 alice Основной KZ01 KZT 50000 0",
+                "open 2 bob Основной KZ02 KZT 0 0",
+                "transfer 1 2 1250 1000 обед",
+                "loan 2 10000 11200 2000");
+    }
+
+    @Test
+    void recoversAcrossSegmentsAndKeepsAppending() {
+        AccountJournal journal = open(256);
+        journal.replay(new Recorder());
+        for (int i = 0; i < 40; i++) {
+            journal.appendTransfer(1, 2, i, i, "t" + i);
+        }
+        journal.close();
+        assertThat(segments()).hasSizeGreaterThan(1);
+
+        AccountJournal reopened = open(256);
+        assertThat(reopened.replay(new Recorder())).isEqualTo(40);
+        reopened.appendTransfer(2, 1, 99, 99, "после рестарта");
+        reopened.close();
+
+        Recorder recovered = new Recorder();
+        open(256).replay(recovered);
+        assertThat(recovered.events).hasSize(41).endsWith("transfer 2 1 99 99 после рестарта");
+    }
+
+    @Test
+    void dropsFrameWithBadChecksumAndOverwritesIt() throws IOException {
+        AccountJournal journal = open(1 << 16);
+        journal.replay(new Recorder());
+        journal.appendTransfer(1, 2, 100, 1L, "первый");
+        journal.appendTransfer(1, 2, 200, 2L, "второй");
+        journal.appendTransfer(1, 2, 300, 3L, "оборван");
+        journal.close();
+        // Портим байт в теле последнего кадра: так выглядит запись, не доехавшая до диска целиком.
+        corruptLastFrame();
+
+        AccountJournal reopened = open(1 << 16);
+        Recorder recovered = new Recorder();
+        assertThat(reopened.replay(recovered)).isEqualTo(2);
+        assertThat(recovered.events).containsExactly(
+                "transfer 1 2 100 1 первый",
+                "transfer 1 2 200 2 второй");
+
+        reopened.appendTransfer(1, 2, 400, 4L, "новый");
+        reopened.close();
+        Recorder afterRewrite = new Recorder();
+        assertThat(open(1 << 16).replay(afterRewrite)).isEqualTo(3);
+        assertThat(afterRewrite.events).endsWith("transfer 1 2 400 4 новый");
+    }
+
+    @Test
+    void batchFrameIsReplayedWhollyOrNotAtAll() throws IOException {
+        AccountJournal journal = open(1 << 16);
+        journal.replay(new Recorder());
+        journal.appendTransferBatch(new long[]{1, 2}, new long[]{2, 3}, new long[]{10, 20}, 5L,
+                new String[]{"a", null});
+        journal.close();
+
+        Recorder whole = new Recorder();
+        AccountJournal reopened = open(1 << 16);
+        assertThat(reopened.replay(whole)).isEqualTo(1);
+        assertThat(whole.events).containsExactly("transfer 1 2 10 5 a", "transfer 2 3 20 5 null");
+        reopened.appendTransferBatch(new long[]{3}, new long[]{1}, new long[]{30}, 6L, new String[]{"b"});
+        reopened.close();
+        corruptLastFrame();
+
+        Recorder torn = new Recorder();
+        open(1 << 16).replay(torn);
+        assertThat(torn.events).containsExactly("transfer 1 2 10 5 a", "transfer 2 3 20 5 null");
+    }
+
+    @Test
+    void snapshotFoldsClosedSegmentsAndTailIsReplayedOnTop() {
+        AccountJournal journal = open(256);
+        journal.replay(new Recorder());
+        journal.appendAccountOpened(1, "alice", "A", "KZ01", "KZT", 100_000, 0);
+        journal.appendAccountOpened(2, "bob", "B", "KZ02", "KZT", 0, 0);
+        for (int i = 1; i <= 30; i++) {
+            journal.appendTransfer(1, 2, i, i, "t" + i);
+        }
+        journal.appendLoan(2, 500, 560, 31L);
+        assertThat(segments()).hasSizeGreaterThan(2);
+
+        assertThat(journal.snapshot()).isTrue();
+        // Остаётся только текущий сегмент, остальное — в снимке.
+        assertThat(segments()).hasSize(1);
+        assertThat(snapshots()).hasSize(1);
+        assertThat(journal.snapshot()).isFalse();
+
+        for (int i = 31; i <= 40; i++) {
+            journal.appendTransfer(2, 1, i, i, "back" + i);
+        }
+        journal.close();
+
+        Recorder recovered = new Recorder();
+        open(256).replay(recovered);
+        assertThat(recovered.events.get(0)).startsWith("open 1 alice");
+        assertThat(recovered.events.get(1)).startsWith("open 2 bob");
+        assertThat(recovered.events.get(2)).isEqualTo("sequence 3");
+        assertThat(recovered.events).endsWith("transfer 2 1 40 40 back40");
+        // 100 000 - (1..30) + (31..40) и 500 по кредиту у bob.
+        assertThat(recovered.balances).containsEntry(1L, 100_000L - 465 + 355)
+                .containsEntry(2L, 465L + 500 - 355);
+        assertThat(recovered.debts).containsEntry(2L, 560L);
+    }
+
+    @Test
+    void segmentsLeftBehindBySnapshotAreDeletedOnReplay() throws IOException {
+        AccountJournal journal = open(256);
+        journal.replay(new Recorder());
+        journal.appendAccountOpened(1, "alice", "A", "KZ01", "KZT", 1_000, 0);
+        journal.appendAccountOpened(2, "bob", "B", "KZ02", "KZT", 0, 0);
+        for (int i = 0; i < 20; i++) {
+            journal.appendTransfer(1, 2, 10, i, "t" + i);
+        }
+        Path first = segments().get(0);
+        byte[] covered = Files.readAllBytes(first);
+        journal.snapshot();
+        journal.close();
+        // Остановка между записью снимка и удалением сегментов.
+        Files.write(first, covered);
+
+        Recorder recovered = new Recorder();
+        open(256).replay(recovered);
+        assertThat(Files.exists(first)).isFalse();
+        assertThat(recovered.balances).containsEntry(1L, 800L).containsEntry(2L, 200L);
+    }
+
+    @Test
+    void snapshotSkipsFramesForUnknownAccounts() {
+        AccountJournal journal = open(256);
+        journal.replay(new Recorder());
+        journal.appendAccountOpened(1, "alice", "A", "KZ01", "KZT", 1_000, 0);
+        journal.appendTransfer(1, 7, 300, 1L, "нет счёта");
+        journal.appendLoan(7, 300, 330, 2L);
+        for (int i = 0; i < 20; i++) {
+            journal.appendTransfer(1, 1, 1, i, "t" + i);
+        }
+        assertThat(journal.snapshot()).isTrue();
+        journal.close();
+
+        Recorder recovered = new Recorder();
+        open(256).replay(recovered);
+        assertThat(recovered.events.get(0)).isEqualTo("open 1 alice A KZ01 KZT 1000 0");
+        assertThat(recovered.balances).containsEntry(1L, 1_000L).doesNotContainKey(7L);
+    }
+
+    private AccountJournal open(int segmentSize) {
+        AccountJournal journal = new AccountJournal(true, directory.toString(), segmentSize, 1, true, 0,
+                new BankMetrics(new SimpleMeterRegistry()));
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<Path> segments() {
+        return files(".log");
+    }
+
+    private List<Path> snapshots() {
+        return files(".bin");
+    }
+
+    private List<Path> files(String suffix) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(suffix)).sorted().toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void corruptLastFrame() throws IOException {
+        List<Path> segments = segments();
+        try (FileChannel channel = FileChannel.open(segments.get(segments.size() - 1),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int last = lastFrameOffset(buffer);
+            int bodyStart = last + Integer.BYTES;
+            buffer.put(bodyStart + 1, (byte) (buffer.get(bodyStart + 1) ^ 0x5A));
+            buffer.force();
+        }
+    }
+
+    private static int lastFrameOffset(ByteBuffer buffer) {
+        int offset = 0;
+        int last = -1;
+        while (true) {
+            int next = AccountJournal.readFrame(buffer, offset, new Recorder());
+            if (next < 0) {
+                return last;
+            }
+            last = offset;
+            offset = next;
+        }
+    }
+
+    static final class Recorder implements JournalVisitor {
+
+        final List<String> events = new ArrayList<>();
+        final Map<Long, Long> balances = new HashMap<>();
+        final Map<Long, Long> debts = new HashMap<>();
+
+        @Override
+        public void onAccountOpened(long accountId,
+                                    String ownerUsername,
+                                    String title,
+                                    String number,
+                                    String currency,
+                                    long balance,
+                                    long loanDebt) {
+            events.add("open " + accountId + " " + ownerUsername + " " + title + " " + number + " "
+                    + currency + " " + balance + " " + loanDebt);
+            balances.put(accountId, balance);
+            debts.put(accountId, loanDebt);
+        }
+
+        @Override
+        public void onTransfer(long fromAccountId, long toAccountId, long amount, long createdAtMillis, String description) {
+            events.add("transfer " + fromAccountId + " " + toAccountId + " " + amount + " "
+                    + createdAtMillis + " " + description);
+            balances.merge(fromAccountId, -amount, Long::sum);
+            balances.merge(toAccountId, amount, Long::sum);
+        }
+
+        @Override
+        public void onLoan(long accountId, long amount, long totalToRepay, long createdAtMillis) {
+            events.add("loan " + accountId + " " + amount + " " + totalToRepay + " " + createdAtMillis);
+            balances.merge(accountId, amount, Long::sum);
+            debts.merge(accountId, totalToRepay, Long::sum);
+        }
+
+        @Override
+        public void onIdSequence(long nextId) {
+            events.add("sequence " + nextId);
+        }
+    }
+}
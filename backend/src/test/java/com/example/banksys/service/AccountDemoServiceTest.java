@@ -0,0 +1,280 @@
+package com.example.banksys.service;
+
+import com.example.banksys.dto.AccountDto;
+import com.example.banksys.dto.LoanRequest;
+import com.example.banksys.dto.TransferBatchItemResult;
+import com.example.banksys.dto.TransferBatchResponse;
+import com.example.banksys.dto.TransferRequest;
+import com.example.banksys.journal.AccountJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.banksys.service.ServiceFixtures.amount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AccountDemoServiceTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentTransfersConserveMoneyAndNeverOverdraw() throws Exception {
+        AccountDemoService service = ServiceFixtures.service(
+                ServiceFixtures.employees("u0", "u1", "u2", "u3"), ServiceFixtures.disabledJournal());
+        BigDecimal total = totalBalance(service.getAccounts());
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2_000; i++) {
+                    long from = 1 + random.nextInt(4);
+                    long to = 1 + (from + random.nextInt(3)) % 4;
+                    try {
+                        service.transfer(request(from, to, "12345.67"));
+                    } catch (InsufficientFundsException e) {
+                        // Допустимо: счёт опустел, главное — не ушёл в минус.
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        List<AccountDto> accounts = service.getAccounts();
+        assertThat(totalBalance(accounts)).isEqualByComparingTo(total);
+        assertThat(accounts).allSatisfy(account -> assertThat(account.getBalance()).isNotNegative());
+    }
+
+    @Test
+    void concurrentDebitsOfOneAccountStopExactlyAtZero() throws Exception {
+        // Исходный баланс u0 — 500 000.00, т.е. ровно 50 переводов по 10 000.00.
+        AccountDemoService service = ServiceFixtures.service(
+                ServiceFixtures.employees("u0", "u1"), ServiceFixtures.disabledJournal());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    service.transfer(request(1, 2, "10000.00"));
+                    succeeded.incrementAndGet();
+                } catch (InsufficientFundsException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertThat(succeeded).hasValue(50);
+        assertThat(rejected).hasValue(30);
+        assertThat(service.getAccounts().get(0).getBalance()).isEqualByComparingTo("0.00");
+        assertThat(service.getAccounts().get(1).getBalance()).isEqualByComparingTo("1000000.00");
+    }
+
+    @Test
+    void amountsAreKeptInMinorUnitsWithoutDrift() {
+        AccountDemoService service = ServiceFixtures.service(
+                ServiceFixtures.employees("u0", "u1"), ServiceFixtures.disabledJournal());
+        for (int i = 0; i < 10; i++) {
+            service.transfer(request(1, 2, "0.10"));
+        }
+
+        assertThat(service.getAccounts().get(0).getBalance()).isEqualTo(amount("499999.00"));
+        assertThat(service.getAccounts().get(1).getBalance()).isEqualTo(amount("500001.00"));
+    }
+
+    @Test
+    void rejectsTransferAboveBalanceWithoutChangingIt() {
+        AccountDemoService service = ServiceFixtures.service(
+                ServiceFixtures.employees("u0", "u1"), ServiceFixtures.disabledJournal());
+
+        assertThatThrownBy(() -> service.transfer(request(1, 2, "500000.01")))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThat(service.getAccounts().get(0).getBalance()).isEqualByComparingTo("500000.00");
+    }
+
+    @Test
+    void atomicBatchSettlesNetAmountsSoChainedTransfersPass() {
+        // У u0 500 000.00: второй перевод проходит только потому, что первый вернёт ему деньги.
+        AccountDemoService service = ServiceFixtures.service(
+                ServiceFixtures.employees("u0", "u1"), ServiceFixtures.disabledJournal());
+
+        TransferBatchResponse response = service.transferBatch(List.of(
+                request(2, 1, "300000.00"),
+                request(1, 2, "700000.00")), "atomic");
+
+        assertThat(response.getStatus()).isEqualTo("ok");
+        assertThat(response.getApplied()).isEqualTo(2);
+        assertThat(service.getAccounts().get(0).getBalance()).isEqualByComparingTo("100000.00");
+        assertThat(service.getAccounts().get(1).getBalance()).isEqualByComparingTo("900000.00");
+    }
+
+    @Test
+    void rejectedAtomicBatchLeavesBalancesUntouched() {
+        AccountDemoService service = ServiceFixtures.service(
+                ServiceFixtures.employees("u0", "u1", "u2"), ServiceFixtures.disabledJournal());
+
+        TransferBatchResponse response = service.transferBatch(List.of(
+                request(1, 2, "100000.00"),
+                request(3, 1, "600000.00")), "atomic");
+
+        assertThat(response.getStatus()).isEqualTo("rejected");
+        assertThat(response.getApplied()).isZero();
+        assertThat(response.getResults()).extracting(TransferBatchItemResult::getStatus)
+                .containsOnly("rejected");
+        assertThat(service.getAccounts()).extracting(AccountDto::getBalance)
+                .allSatisfy(balance -> assertThat(balance).isEqualByComparingTo("500000.00"));
+    }
+
+    @Test
+    void bestEffortBatchAppliesWhatItCanInSenderOrder() {
+        AccountDemoService service = ServiceFixtures.service(
+                ServiceFixtures.employees("u0", "u1", "u2"), ServiceFixtures.disabledJournal());
+
+        TransferBatchResponse response = service.transferBatch(List.of(
+                request(1, 2, "400000.00"),
+                request(1, 3, "200000.00"),
+                request(2, 3, "100.00"),
+                request(99, 1, "1.00")), "best-effort");
+
+        assertThat(response.getStatus()).isEqualTo("partial");
+        assertThat(response.getApplied()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(2);
+        assertThat(response.getResults()).extracting(TransferBatchItemResult::getStatus)
+                .containsExactly("ok", "rejected", "ok", "rejected");
+        assertThat(service.getAccounts()).extracting(AccountDto::getBalance).usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(amount("100000.00"), amount("899900.00"), amount("500100.00"));
+    }
+
+    @Test
+    void balancesAndHistorySurviveRestartFromJournal(@TempDir Path directory) {
+        AccountJournal journal = ServiceFixtures.journal(directory, 1 << 16);
+        AccountDemoService service = ServiceFixtures.service(ServiceFixtures.employees("u0", "u1", "u2"), journal);
+        service.transfer(request(1, 2, "1500.25"));
+        service.transferBatch(List.of(request(2, 3, "100.00"), request(3, 1, "0.75")), "atomic");
+        List<AccountDto> before = service.getAccounts();
+        journal.close();
+
+        AccountJournal reopened = ServiceFixtures.journal(directory, 1 << 16);
+        try {
+            AccountDemoService restored = ServiceFixtures.service(
+                    ServiceFixtures.employees("u0", "u1", "u2"), reopened);
+
+            assertThat(restored.getAccounts()).extracting(AccountDto::getBalance)
+                    .usingElementComparator(BigDecimal::compareTo)
+                    .containsExactlyElementsOf(before.stream().map(AccountDto::getBalance).toList());
+            assertThat(restored.getAccounts().get(0).getBalance()).isEqualByComparingTo("498500.50");
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void restartSkipsJournalFramesForUnknownAccounts(@TempDir Path directory) {
+        AccountJournal journal = ServiceFixtures.journal(directory, 1 << 16);
+        ServiceFixtures.service(ServiceFixtures.employees("u0", "u1"), journal);
+        // Кадры, ссылающиеся на счёт без кадра открытия, не должны мешать старту.
+        journal.appendTransfer(1, 99, 100, System.currentTimeMillis(), "test");
+        journal.appendLoan(99, 100, 112, System.currentTimeMillis());
+        journal.close();
+
+        AccountJournal reopened = ServiceFixtures.journal(directory, 1 << 16);
+        try {
+            AccountDemoService restored = ServiceFixtures.service(ServiceFixtures.employees("u0", "u1"), reopened);
+
+            assertThat(restored.getAccounts()).extracting(AccountDto::getBalance)
+                    .allSatisfy(balance -> assertThat(balance).isEqualByComparingTo("500000.00"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void rejectsOversizedAmountsAsInvalidRequest() {
+        AccountDemoService service = ServiceFixtures.service(
+                ServiceFixtures.employees("u0", "u1"), ServiceFixtures.disabledJournal());
+
+        assertThatThrownBy(() -> service.transfer(request(1, 2, "1000000000000.01")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.transfer(request(1, 2, "99999999999999999999999.00")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.takeLoan(loan(1, "1000000000000.01")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(service.getAccounts().get(0).getBalance()).isEqualByComparingTo("500000.00");
+    }
+
+    @Test
+    void repeatedLoansStopAtBalanceLimitInsteadOfWrapping() {
+        AccountDemoService service = ServiceFixtures.service(
+                ServiceFixtures.employees("u0", "u1"), ServiceFixtures.disabledJournal());
+
+        int granted = 0;
+        BigDecimal last = null;
+        for (int i = 0; i < 2_000; i++) {
+            try {
+                service.takeLoan(loan(1, "1000000000000.00"));
+                granted++;
+            } catch (IllegalStateException e) {
+                last = service.getAccounts().get(0).getBalance();
+                break;
+            }
+        }
+
+        assertThat(last).as("лимит не сработал").isNotNull();
+        assertThat(granted).isGreaterThan(0);
+        assertThat(last).isPositive()
+                .isEqualByComparingTo(new BigDecimal("1000000000000.00").multiply(BigDecimal.valueOf(granted))
+                        .add(amount("500000.00")));
+        // Кредит в пределах остатка лимита всё ещё выдаётся.
+        service.takeLoan(loan(1, "1000.00"));
+        assertThat(service.getAccounts().get(0).getBalance()).isEqualByComparingTo(last.add(amount("1000.00")));
+    }
+
+    static TransferRequest request(long from, long to, String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(from);
+        request.setToAccountId(to);
+        request.setAmount(amount(amount));
+        request.setDescription("test");
+        return request;
+    }
+
+    private static LoanRequest loan(long accountId, String amount) {
+        LoanRequest request = new LoanRequest();
+        request.setAccountId(accountId);
+        request.setAmount(amount(amount));
+        request.setRate(BigDecimal.ZERO);
+        return request;
+    }
+
+    private static BigDecimal totalBalance(List<AccountDto> accounts) {
+        return accounts.stream().map(AccountDto::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.banksys.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuthTokenServiceTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final AuthTokenService tokens = new AuthTokenService(SECRET, 3600);
+
+    @Test
+    void issuesSignedTokenThatVerifiesToSameClaims() {
+        long now = System.currentTimeMillis() / 1000;
+        String token = tokens.generateToken(employee(42, "ivan.petrov", "Иван Петров", 0b101));
+
+        assertThat(token).matches("v1\\.[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]{43}");
+        TokenClaims claims = tokens.verify(token);
+        assertThat(claims).isNotNull();
+        assertThat(claims.getEmployeeId()).isEqualTo(42);
+        assertThat(claims.getUsername()).isEqualTo("ivan.petrov");
+        assertThat(claims.getFullName()).isEqualTo("Иван Петров");
+        assertThat(claims.getRoleMask()).isEqualTo(0b101);
+        assertThat(claims.getExpiresAt()).isBetween(now + 3600, now + 3601);
+    }
+
+    @Test
+    void rejectsTokenWithTamperedPayloadOrSignature() {
+        String token = tokens.generateToken(employee(7, "user", "User", 0));
+        String[] parts = token.split("\\.");
+
+        // Подменяем маску ролей, оставляя старую подпись.
+        byte[] payload = DECODER.decode(parts[1]);
+        payload[Long.BYTES * 2 - 1] = (byte) 0xFF;
+        assertThat(tokens.verify("v1." + ENCODER.encodeToString(payload) + "." + parts[2])).isNull();
+
+        byte[] signature = DECODER.decode(parts[2]);
+        signature[0] ^= 1;
+        assertThat(tokens.verify("v1." + parts[1] + "." + ENCODER.encodeToString(signature))).isNull();
+
+        assertThat(tokens.verify(token.substring(0, token.length() - 2))).isNull();
+        assertThat(new AuthTokenService("another-secret", 3600).verify(token)).isNull();
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThat(tokens.verify(null)).isNull();
+        assertThat(tokens.verify("")).isNull();
+        assertThat(tokens.verify("v1.")).isNull();
+        assertThat(tokens.verify("v2.AAAA.AAAA")).isNull();
+        assertThat(tokens.verify("v1.!!!.???")).isNull();
+        assertThat(tokens.verify("v1.AAAA")).isNull();
+    }
+
+    @Test
+    void rejectsCorrectlySignedButTruncatedPayload() {
+        assertThat(tokens.verify(sign(new byte[Long.BYTES * 2]))).isNull();
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        long now = System.currentTimeMillis() / 1000;
+
+        assertThat(tokens.verify(sign(payload(1, "user", "User", 0, now - 1)))).isNull();
+        assertThat(tokens.verify(sign(payload(1, "user", "User", 0, now)))).isNull();
+        // Та же подпись вручную, но в пределах срока — принимается.
+        assertThat(tokens.verify(sign(payload(1, "user", "User", 0, now + 60)))).isNotNull();
+    }
+
+    @Test
+    void verifiesOnVirtualThreads() throws InterruptedException {
+        String token = tokens.generateToken(employee(5, "virtual", "Virtual", 1));
+        AtomicReference<TokenClaims> claims = new AtomicReference<>();
+
+        Thread.ofVirtual().start(() -> claims.set(tokens.verify(token))).join();
+
+        assertThat(claims.get()).isNotNull();
+        assertThat(claims.get().getUsername()).isEqualTo("virtual");
+    }
+
+    private static CachedEmployee employee(long id, String username, String fullName, long roleMask) {
+        CachedEmployee employee = mock(CachedEmployee.class);
+        when(employee.getId()).thenReturn(id);
+        when(employee.getUsername()).thenReturn(username);
+        when(employee.getFullName()).thenReturn(fullName);
+        when(employee.getRoleMask()).thenReturn(roleMask);
+        return employee;
+    }
+
+    private static byte[] payload(long id, String username, String fullName, long roleMask, long expiresAt) {
+        byte[] usernameBytes = username.getBytes(StandardCharsets.UTF_8);
+        byte[] fullNameBytes = fullName.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(
+                Long.BYTES * 3 + Short.BYTES * 2 + usernameBytes.length + fullNameBytes.length);
+        payload.putLong(id).putLong(roleMask).putLong(expiresAt);
+        payload.putShort((short) usernameBytes.length).put(usernameBytes);
+        payload.putShort((short) fullNameBytes.length).put(fullNameBytes);
+        return payload.array();
+    }
+
+    private static String sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return "v1." + ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac.doFinal(payload));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
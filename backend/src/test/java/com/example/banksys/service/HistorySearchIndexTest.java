@@ -0,0 +1,116 @@
+package com.example.banksys.service;
+
+import com.example.banksys.dto.TransferHistoryItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistorySearchIndexTest {
+
+    private final HistorySearchIndex index = new HistorySearchIndex();
+    private final Map<Long, TransferHistoryItem> items = new HashMap<>();
+
+    @Test
+    void tokenizesQueryLikeDescriptions() {
+        assertThat(HistorySearchIndex.terms("Оплата, за  ОБЕД! a 1"))
+                .containsExactlyInAnyOrder("оплата", "за", "обед");
+        assertThat(HistorySearchIndex.terms(null)).isEmpty();
+    }
+
+    @Test
+    void findsByDescriptionWordNewestFirstUpToLimit() {
+        add("alice", "bob", "100.00", "Оплата за обед");
+        add("alice", "bob", "100.00", "Аренда");
+        add("carol", "bob", "100.00", "обед в кафе");
+        add("carol", "dave", "100.00", "ОБЕД");
+
+        assertThat(ids(search("обед", 0, Long.MAX_VALUE, 10))).containsExactly(3L, 2L, 0L);
+        assertThat(ids(search("обед", 0, Long.MAX_VALUE, 2))).containsExactly(3L, 2L);
+        assertThat(search("ужин", 0, Long.MAX_VALUE, 10)).isEmpty();
+    }
+
+    @Test
+    void requiresAllTerms() {
+        add("alice", "bob", "100.00", "обед в кафе");
+        add("carol", "bob", "100.00", "обед дома");
+        add("alice", "dave", "100.00", "кафе");
+
+        assertThat(ids(search("обед кафе", 0, Long.MAX_VALUE, 10))).containsExactly(0L);
+        assertThat(ids(search("alice кафе", 0, Long.MAX_VALUE, 10))).containsExactly(2L, 0L);
+        assertThat(ids(search("carol кафе", 0, Long.MAX_VALUE, 10))).isEmpty();
+    }
+
+    @Test
+    void matchesWholeUsernamesTheirPartsAndAccountNumbers() {
+        add(item("ivan.petrov", "KZ0001", "bob", "KZ0002", "10.00", "перевод"));
+        add(item("bob", "KZ0002", "anna", "KZ0003", "10.00", "перевод"));
+
+        assertThat(ids(search("ivan.petrov", 0, Long.MAX_VALUE, 10))).containsExactly(0L);
+        assertThat(ids(search("Petrov", 0, Long.MAX_VALUE, 10))).containsExactly(0L);
+        assertThat(ids(search("kz0002", 0, Long.MAX_VALUE, 10))).containsExactly(1L, 0L);
+        assertThat(ids(search("KZ0003 bob", 0, Long.MAX_VALUE, 10))).containsExactly(1L);
+    }
+
+    @Test
+    void filtersByAmountRangeWithAndWithoutTerms() {
+        add("alice", "bob", "99.99", "обед");
+        add("alice", "bob", "100.00", "обед");
+        add("alice", "bob", "100.01", "аренда");
+        add("alice", "bob", "250.00", "обед");
+        add("alice", "bob", "0.00", "обед");
+
+        assertThat(ids(search("", 10_000, 10_001, 10))).containsExactly(2L, 1L);
+        assertThat(ids(search("обед", 10_000, 25_000, 10))).containsExactly(3L, 1L);
+        assertThat(ids(search("обед", 0, 9_999, 10))).containsExactly(4L, 0L);
+        assertThat(ids(search("", 30_000, Long.MAX_VALUE, 10))).isEmpty();
+        // Без слов и без границ суммы искать нечего.
+        assertThat(search("", 0, Long.MAX_VALUE, 10)).isEmpty();
+    }
+
+    @Test
+    void storeSearchSkipsRecordsEvictedFromHistory() {
+        TransferHistoryStore store = new TransferHistoryStore(256);
+        for (int i = 0; i < 1_000; i++) {
+            store.append(item("alice", null, "bob", null, i % 2 == 0 ? "10.00" : "20.00", i % 10 == 0 ? "аренда" : "обед"));
+        }
+
+        List<TransferHistoryItem> found = store.search("аренда", null, null, 1_000);
+        assertThat(found).isNotEmpty().allSatisfy(item -> assertThat(item.getId()).isGreaterThanOrEqualTo(store.head()));
+        assertThat(found).hasSize((int) ((store.tail() - store.head()) / 10));
+        assertThat(found.get(0).getId()).isEqualTo(990L);
+
+        assertThat(store.search("обед", new BigDecimal("20.00"), new BigDecimal("20.00"), 3))
+                .extracting(TransferHistoryItem::getId).containsExactly(999L, 997L, 995L);
+    }
+
+    private List<TransferHistoryItem> search(String query, long minMinor, long maxMinor, int limit) {
+        return index.search(HistorySearchIndex.terms(query), minMinor, maxMinor, limit, items::get);
+    }
+
+    private void add(String from, String to, String amount, String description) {
+        add(item(from, null, to, null, amount, description));
+    }
+
+    private void add(TransferHistoryItem item) {
+        long id = items.size();
+        item.setId(id);
+        items.put(id, item);
+        index.add(item, 0);
+    }
+
+    private static List<Long> ids(List<TransferHistoryItem> found) {
+        return found.stream().map(TransferHistoryItem::getId).toList();
+    }
+
+    private static TransferHistoryItem item(String from, String fromNumber, String to, String toNumber,
+                                            String amount, String description) {
+        return new TransferHistoryItem(from, fromNumber, to, toNumber, new BigDecimal(amount), "KZT", description,
+                LocalDateTime.of(2026, 10, 18, 12, 0));
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.banksys.service;
+
+import com.example.banksys.metrics.BankMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private static final List<?> BODY = List.of(1L, 2L, "100.5");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void replaysStoredResponseForSameKeyAndBody() {
+        IdempotencyStore store = store(60_000, 100, 1_000);
+
+        ResponseEntity<?> first = store.execute("k1", "transfer", BODY, counting("ok"));
+        ResponseEntity<?> second = store.execute("k1", "transfer", List.of(1L, 2L, "100.5"), counting("other"));
+
+        assertThat(executions).hasValue(1);
+        assertThat(first.getHeaders().containsHeader(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+        assertThat(second.getBody()).isEqualTo("ok");
+        assertThat(second.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(count("replayed")).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsSameKeyWithDifferentBodyAndKeepsScopesApart() {
+        IdempotencyStore store = store(60_000, 100, 1_000);
+        store.execute("k1", "transfer", BODY, counting("ok"));
+
+        ResponseEntity<?> mismatch = store.execute("k1", "transfer", List.of(1L, 2L, "100.6"), counting("other"));
+        assertThat(mismatch.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_CONTENT);
+        assertThat(count("mismatch")).isEqualTo(1);
+
+        ResponseEntity<?> otherScope = store.execute("k1", "loan", List.of("x"), counting("loan"));
+        assertThat(otherScope.getBody()).isEqualTo("loan");
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void validatesKeyAndRunsActionWithoutKey() {
+        IdempotencyStore store = store(60_000, 100, 1_000);
+
+        assertThat(store.execute(" ", "transfer", BODY, counting("ok")).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(store.execute("x".repeat(256), "transfer", BODY, counting("ok")).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        store.execute(null, "transfer", BODY, counting("ok"));
+        store.execute(null, "transfer", BODY, counting("ok"));
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForFirstAndShareItsResponse() throws Exception {
+        IdempotencyStore store = store(60_000, 100, 10_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<ResponseEntity<?>> first = executor.submit(() -> store.execute("k1", "transfer", BODY, () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            await(release);
+            return ResponseEntity.ok("done");
+        }));
+        started.await();
+        Future<ResponseEntity<?>> duplicate = executor.submit(() -> store.execute("k1", "transfer", BODY, counting("dup")));
+        // Дубликат должен ждать, а не выполнять операцию сам.
+        Thread.sleep(100);
+        assertThat(duplicate.isDone()).isFalse();
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getBody()).isEqualTo("done");
+        ResponseEntity<?> shared = duplicate.get(5, TimeUnit.SECONDS);
+        assertThat(shared.getBody()).isEqualTo("done");
+        assertThat(shared.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(executions).hasValue(1);
+        assertThat(count("coalesced")).isEqualTo(1);
+    }
+
+    @Test
+    void duplicateGivesUpWith409WhenFirstRunsTooLong() throws Exception {
+        IdempotencyStore store = store(60_000, 100, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<ResponseEntity<?>> first = executor.submit(() -> store.execute("k1", "transfer", BODY, () -> {
+            started.countDown();
+            await(release);
+            return ResponseEntity.ok("done");
+        }));
+        started.await();
+
+        assertThat(store.execute("k1", "transfer", BODY, counting("dup")).getStatusCode())
+                .isEqualTo(HttpStatus.CONFLICT);
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void doesNotStoreServerErrorsOrExceptions() {
+        IdempotencyStore store = store(60_000, 100, 1_000);
+
+        store.execute("k1", "transfer", BODY, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.internalServerError().body("fail");
+        });
+        assertThatThrownBy(() -> store.execute("k2", "transfer", BODY, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(store.execute("k1", "transfer", BODY, counting("ok")).getBody()).isEqualTo("ok");
+        assertThat(store.execute("k2", "transfer", BODY, counting("ok")).getBody()).isEqualTo("ok");
+        assertThat(executions).hasValue(3);
+    }
+
+    @Test
+    void expiredResponseIsExecutedAgain() {
+        IdempotencyStore store = store(0, 100, 1_000);
+
+        store.execute("k1", "transfer", BODY, counting("first"));
+        ResponseEntity<?> again = store.execute("k1", "transfer", BODY, counting("second"));
+
+        assertThat(again.getBody()).isEqualTo("second");
+        assertThat(again.getHeaders().containsHeader(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void overflowEvictsEntriesClosestToExpiryFirst() {
+        IdempotencyStore store = store(60_000, 2, 1_000);
+        store.execute("a", "transfer", BODY, counting("a"));
+        store.execute("b", "transfer", BODY, counting("b"));
+        // Третий ключ вытесняет самый старый — «a».
+        store.execute("c", "transfer", BODY, counting("c"));
+        assertThat(size()).isEqualTo(2);
+
+        assertThat(store.execute("c", "transfer", BODY, counting("c2")).getBody()).isEqualTo("c");
+        assertThat(store.execute("b", "transfer", BODY, counting("b2")).getBody()).isEqualTo("b");
+        assertThat(store.execute("a", "transfer", BODY, counting("a2")).getBody()).isEqualTo("a2");
+        assertThat(executions).hasValue(4);
+        assertThat(size()).isEqualTo(2);
+    }
+
+    private IdempotencyStore store(long ttlMillis, int maxSize, long waitMillis) {
+        return new IdempotencyStore(new BankMetrics(registry), ttlMillis, maxSize, waitMillis);
+    }
+
+    private Supplier<ResponseEntity<?>> counting(String body) {
+        return () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.ok(body);
+        };
+    }
+
+    private double count(String result) {
+        return registry.get("banksys.idempotency").tag("result", result).counter().count();
+    }
+
+    private double size() {
+        return registry.get("banksys.idempotency.size").gauge().value();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.banksys.service;
+
+import com.example.banksys.metrics.BankMetrics;
+import com.example.banksys.model.Account;
+import com.example.banksys.repository.AccountRepository;
+import com.example.banksys.repository.EmployeeRepository;
+import com.example.banksys.repository.LedgerChangeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class LedgerPersistenceServiceTest {
+
+    private final AccountRepository accounts = mock(AccountRepository.class);
+    private final LedgerChangeRepository changes = mock(LedgerChangeRepository.class);
+    private final PlatformTransactionManager transactions = mock(PlatformTransactionManager.class);
+    private final LedgerPersistenceService ledger = new LedgerPersistenceService(
+            accounts, mock(EmployeeRepository.class), changes, transactions, true, 1000,
+            new BankMetrics(new SimpleMeterRegistry()));
+
+    @Test
+    void changeCountReadsCounterInsteadOfAccounts() {
+        when(changes.total()).thenReturn(42L);
+
+        assertThat(ledger.changeCount()).isEqualTo(42);
+        verifyNoInteractions(accounts);
+    }
+
+    @Test
+    void transferCountsChangeBeforeCommit() {
+        account(1, 10_000);
+        account(2, 0);
+        when(changes.increment(anyInt())).thenReturn(1);
+
+        ledger.transfer(1, 2, 2_500);
+
+        InOrder order = inOrder(changes, transactions);
+        order.verify(changes).increment(anyInt());
+        order.verify(transactions).commit(any());
+    }
+
+    @Test
+    void rejectedOperationDoesNotCountChange() {
+        account(1, 100);
+        account(2, 0);
+
+        assertThatThrownBy(() -> ledger.transfer(1, 2, 2_500)).isInstanceOf(InsufficientFundsException.class);
+        verify(changes, never()).increment(anyInt());
+    }
+
+    @Test
+    void settleAndLoanCountChanges() {
+        account(1, 10_000);
+        account(2, 0);
+        when(changes.increment(anyInt())).thenReturn(1);
+
+        ledger.settle(Map.of(1L, -500L, 2L, 500L));
+        ledger.loan(2, 1_000, 1_100);
+
+        verify(changes, times(2)).increment(anyInt());
+    }
+
+    @Test
+    void missingCounterSlotsFailTheTransaction() {
+        account(1, 10_000);
+        account(2, 0);
+        when(changes.increment(anyInt())).thenReturn(0);
+
+        assertThatThrownBy(() -> ledger.transfer(1, 2, 2_500)).isInstanceOf(IllegalStateException.class);
+        verify(transactions, never()).commit(any());
+    }
+
+    private void account(long id, long balance) {
+        Account account = new Account("Счёт " + id, "KZT", "user" + id, balance, 0);
+        when(accounts.findById(id)).thenReturn(Optional.of(account));
+    }
+}
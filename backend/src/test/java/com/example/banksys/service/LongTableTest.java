@@ -0,0 +1,152 @@
+package com.example.banksys.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongTableTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void storesValuesAcrossSegmentBoundariesAndSparseKeys() {
+        LongTable<String> table = new LongTable<>();
+        long[] ids = {0, 1, 4095, 4096, 8191, 10_000_000, (1L << 31) - 1, 1L << 31, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+        for (long id : ids) {
+            assertThat(table.put(id, "v" + id)).isNull();
+        }
+
+        assertThat(table.size()).isEqualTo(ids.length);
+        for (long id : ids) {
+            assertThat(table.get(id)).isEqualTo("v" + id);
+        }
+        assertThat(table.get(2)).isNull();
+        assertThat(table.get(4097)).isNull();
+        assertThat(table.get(20_000_000)).isNull();
+        assertThat(table.get(-2)).isNull();
+    }
+
+    @Test
+    void putReplacesAndPutIfAbsentKeepsExisting() {
+        LongTable<String> table = new LongTable<>();
+
+        assertThat(table.putIfAbsent(5, "a")).isNull();
+        assertThat(table.putIfAbsent(5, "b")).isEqualTo("a");
+        assertThat(table.put(5, "c")).isEqualTo("a");
+        assertThat(table.putIfAbsent(-5, "x")).isNull();
+        assertThat(table.putIfAbsent(-5, "y")).isEqualTo("x");
+
+        assertThat(table.get(5)).isEqualTo("c");
+        assertThat(table.get(-5)).isEqualTo("x");
+        assertThat(table.size()).isEqualTo(2);
+    }
+
+    @Test
+    void iteratesDenseKeysInAscendingOrderThenSparse() {
+        LongTable<Long> table = new LongTable<>();
+        for (long id : new long[]{9000, -3, 3, 4096, 1L << 40, 1, 5000}) {
+            table.put(id, id);
+        }
+
+        List<Long> visited = new ArrayList<>();
+        table.forEach(visited::add);
+
+        assertThat(visited).startsWith(1L, 3L, 4096L, 5000L, 9000L);
+        assertThat(visited.subList(5, 7)).containsExactlyInAnyOrder(-3L, 1L << 40);
+    }
+
+    @Test
+    void clearDropsEverything() {
+        LongTable<String> table = new LongTable<>();
+        table.put(1, "a");
+        table.put(100_000, "b");
+        table.put(-1, "c");
+
+        table.clear();
+
+        assertThat(table.size()).isZero();
+        assertThat(table.get(1)).isNull();
+        assertThat(table.get(100_000)).isNull();
+        assertThat(table.get(-1)).isNull();
+        table.put(100_000, "d");
+        assertThat(table.get(100_000)).isEqualTo("d");
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentInsertsWhileDirectoryGrowsLoseNothing() throws Exception {
+        LongTable<Long> table = new LongTable<>();
+        int threads = 4;
+        int perThread = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                // Потоки пишут вперемешку, каждый — в свои id, каталог растёт на ходу.
+                for (long i = 0; i < perThread; i++) {
+                    long id = i * threads + offset;
+                    table.put(id, id);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertThat(table.size()).isEqualTo(threads * perThread);
+        for (long id = 0; id < (long) threads * perThread; id++) {
+            if (table.get(id) == null || table.get(id) != id) {
+                throw new AssertionError("Потерян id " + id);
+            }
+        }
+    }
+
+    @Test
+    void concurrentPutIfAbsentHasSingleWinnerPerKey() throws Exception {
+        LongTable<Integer> table = new LongTable<>();
+        Set<Long> won = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                int wins = 0;
+                for (long id = 0; id < 20_000; id++) {
+                    if (table.putIfAbsent(id, thread) == null) {
+                        assertThat(won.add(id)).isTrue();
+                        wins++;
+                    }
+                }
+                return wins;
+            }));
+        }
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> future : futures) {
+            total += future.get();
+        }
+
+        assertThat(total).isEqualTo(20_000);
+        assertThat(table.size()).isEqualTo(20_000);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.banksys.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferTest {
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        assertThat(new RingBuffer<Integer>(8).capacity()).isEqualTo(8);
+        assertThat(new RingBuffer<Integer>(5).capacity()).isEqualTo(8);
+        assertThat(new RingBuffer<Integer>(1000).capacity()).isEqualTo(1024);
+    }
+
+    @Test
+    void rejectsOfferWhenFullUntilConsumerDrains() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained, 1)).isEqualTo(1);
+        assertThat(buffer.offer(4)).isTrue();
+        assertThat(buffer.offer(5)).isFalse();
+
+        buffer.drainTo(drained, Integer.MAX_VALUE);
+        assertThat(drained).containsExactly(0, 1, 2, 3, 4);
+        assertThat(buffer.size()).isZero();
+        assertThat(buffer.drainTo(drained, 10)).isZero();
+    }
+
+    @Test
+    void keepsFifoOrderAcrossManyWraparounds() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(8);
+        List<Integer> drained = new ArrayList<>();
+        int next = 0;
+        // Неровные порции, чтобы начало и конец данных попадали на разные слоты.
+        for (int round = 0; round < 1_000; round++) {
+            int batch = 1 + round % 7;
+            if (buffer.size() + batch > buffer.capacity()) {
+                buffer.drainTo(drained, Integer.MAX_VALUE);
+            }
+            for (int i = 0; i < batch; i++) {
+                assertThat(buffer.offer(next++)).isTrue();
+            }
+            buffer.drainTo(drained, 1 + round % 5);
+        }
+        buffer.drainTo(drained, Integer.MAX_VALUE);
+
+        assertThat(drained).hasSize(next);
+        for (int i = 0; i < next; i++) {
+            assertThat(drained.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void deliversEveryItemOnceWithConcurrentProducers() throws Exception {
+        RingBuffer<long[]> buffer = new RingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                long producer = p;
+                futures.add(executor.submit(() -> {
+                    for (long i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(new long[]{producer, i})) {
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+
+            long[] expected = new long[producers];
+            List<long[]> drained = new ArrayList<>();
+            long received = 0;
+            while (received < (long) producers * perProducer) {
+                drained.clear();
+                int count = buffer.drainTo(drained, 32);
+                if (count == 0) {
+                    Thread.yield();
+                }
+                received += count;
+                for (long[] item : drained) {
+                    // Порядок внутри одного производителя сохраняется.
+                    if (item[1] != expected[(int) item[0]]++) {
+                        throw new AssertionError("Нарушен порядок производителя " + item[0] + ": " + item[1]);
+                    }
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertThat(expected).containsOnly(perProducer);
+            assertThat(buffer.size()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.banksys.service;
+
+import com.example.banksys.journal.AccountJournal;
+import com.example.banksys.metrics.BankMetrics;
+import com.example.banksys.model.Employee;
+import com.example.banksys.repository.AccountRepository;
+import com.example.banksys.repository.EmployeeRepository;
+import com.example.banksys.repository.LedgerChangeRepository;
+import com.example.banksys.repository.RoleRepository;
+import com.example.banksys.repository.TransferRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** {@link AccountDemoService} без Spring и БД: репозитории — моки, Postgres-режим выключен. */
+final class ServiceFixtures {
+
+    private ServiceFixtures() {
+    }
+
+    static BankMetrics metrics() {
+        return new BankMetrics(new SimpleMeterRegistry());
+    }
+
+    /** Сотрудники без ролей — им разрешены переводы и кредиты. */
+    static EmployeeRepository employees(String... usernames) {
+        List<Employee> employees = new ArrayList<>(usernames.length);
+        for (String username : usernames) {
+            employees.add(new Employee("Test " + username, username, "password"));
+        }
+        EmployeeRepository repository = mock(EmployeeRepository.class);
+        when(repository.findAll()).thenReturn(employees);
+        when(repository.findAllWithRoles()).thenReturn(employees);
+        return repository;
+    }
+
+    static AccountJournal disabledJournal() {
+        return new AccountJournal(false, "unused", 1 << 20, 2, false, 0, metrics());
+    }
+
+    /** Журнал в {@code directory} без фоновых снимков; {@code replay} вызывает сам сервис. */
+    static AccountJournal journal(Path directory, int segmentSize) {
+        return new AccountJournal(true, directory.toString(), segmentSize, 1, true, 0, metrics());
+    }
+
+    static AccountDemoService service(EmployeeRepository employees, AccountJournal journal) {
+        return service(employees, journal, 10_000);
+    }
+
+    static AccountDemoService service(EmployeeRepository employees, AccountJournal journal, int historyRetention) {
+        AuthorizationIndex authorizationIndex = new AuthorizationIndex(employees, mock(RoleRepository.class));
+        authorizationIndex.rebuild();
+        BankMetrics metrics = metrics();
+        LedgerPersistenceService ledger = new LedgerPersistenceService(
+                mock(AccountRepository.class), employees, mock(LedgerChangeRepository.class), null, false, 1000, metrics);
+        TransferHistoryWriter historyWriter = new TransferHistoryWriter(
+                mock(TransferRepository.class), null, false, 1024, 100, "block", metrics);
+        AccountDemoService service = new AccountDemoService(
+                employees,
+                authorizationIndex,
+                new TransferHistoryStore(historyRetention),
+                new StatementBook(400),
+                journal,
+                ledger,
+                historyWriter,
+                metrics
+        );
+        service.seedDemoAccounts();
+        return service;
+    }
+
+    static BigDecimal amount(String value) {
+        return new BigDecimal(value);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.banksys.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatementBookTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 1, 1);
+
+    @Test
+    void aggregatesOperationsPerDay() {
+        StatementBook book = new StatementBook(400);
+        book.transfer(1, 2, 1_000, at(0, 9));
+        book.transfer(2, 1, 300, at(0, 23));
+        book.loan(1, 50_000, at(0, 12));
+        book.transfer(1, 2, 5, at(1, 0));
+
+        long[] rows = book.range(1, day(0), day(1));
+
+        assertThat(rows).hasSize(2 * StatementBook.FIELDS);
+        assertThat(row(rows, 0)).containsExactly(day(0), 300, 1_000, 3, 50_000);
+        assertThat(row(rows, 1)).containsExactly(day(1), 0, 5, 1, 0);
+        assertThat(row(book.range(2, day(0), day(0)), 0)).containsExactly(day(0), 1_000, 300, 2, 0);
+    }
+
+    @Test
+    void rangeIsInclusiveAndSkipsDaysWithoutOperations() {
+        StatementBook book = new StatementBook(400);
+        for (int d : new int[]{0, 3, 7, 10}) {
+            book.transfer(1, 2, 100, at(d, 12));
+        }
+
+        assertThat(days(book.range(1, day(3), day(7)))).containsExactly(day(3), day(7));
+        assertThat(days(book.range(1, day(1), day(9)))).containsExactly(day(3), day(7));
+        assertThat(days(book.range(1, day(-5), day(50)))).containsExactly(day(0), day(3), day(7), day(10));
+        assertThat(book.range(1, day(4), day(6))).isEmpty();
+        assertThat(book.range(1, day(11), day(20))).isEmpty();
+        assertThat(book.range(99, day(0), day(10))).isEmpty();
+    }
+
+    @Test
+    void keepsDaysSortedWhenOperationsArriveOutOfOrder() {
+        StatementBook book = new StatementBook(400);
+        for (int d : new int[]{5, 1, 9, 3, 7, 1, 5}) {
+            book.transfer(1, 2, 10, at(d, 12));
+        }
+
+        long[] rows = book.range(1, day(0), day(10));
+        assertThat(days(rows)).containsExactly(day(1), day(3), day(5), day(7), day(9));
+        assertThat(row(rows, 0)[StatementBook.OPERATIONS]).isEqualTo(2);
+        assertThat(row(rows, 2)[StatementBook.DEBITED]).isEqualTo(20);
+    }
+
+    @Test
+    void trimsDaysBeyondRetentionWhenArrayGrows() {
+        StatementBook book = new StatementBook(10);
+        // Четыре дня заполняют начальный массив; пятый заставляет его расти.
+        for (int d : new int[]{0, 5, 8, 9}) {
+            book.transfer(1, 2, 10, at(d, 12));
+        }
+        assertThat(days(book.range(1, day(0), day(30)))).containsExactly(day(0), day(5), day(8), day(9));
+
+        book.transfer(1, 2, 10, at(12, 12));
+        assertThat(days(book.range(1, day(0), day(30)))).containsExactly(day(5), day(8), day(9), day(12));
+
+        book.transfer(1, 2, 10, at(40, 12));
+        assertThat(days(book.range(1, day(0), day(60)))).containsExactly(day(40));
+    }
+
+    @Test
+    void doesNotTrimWhileArrayHasRoom() {
+        StatementBook book = new StatementBook(10);
+        book.transfer(1, 2, 10, at(0, 12));
+        book.transfer(1, 2, 10, at(100, 12));
+
+        assertThat(days(book.range(1, day(0), day(100)))).containsExactly(day(0), day(100));
+    }
+
+    @Test
+    void rejectsNonPositiveRetention() {
+        assertThatThrownBy(() -> new StatementBook(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long at(int dayOffset, int hour) {
+        return START.plusDays(dayOffset).atTime(hour, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long day(int dayOffset) {
+        return START.plusDays(dayOffset).toEpochDay();
+    }
+
+    private static long[] row(long[] rows, int index) {
+        long[] row = new long[StatementBook.FIELDS];
+        System.arraycopy(rows, index * StatementBook.FIELDS, row, 0, StatementBook.FIELDS);
+        return row;
+    }
+
+    private static long[] days(long[] rows) {
+        long[] days = new long[rows.length / StatementBook.FIELDS];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = rows[i * StatementBook.FIELDS + StatementBook.DAY];
+        }
+        return days;
+    }
+}
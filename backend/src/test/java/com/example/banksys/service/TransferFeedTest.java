@@ -0,0 +1,252 @@
+package com.example.banksys.service;
+
+import com.example.banksys.dto.TransferHistoryItem;
+import com.example.banksys.metrics.BankMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransferFeedTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TransferHistoryStore history = new TransferHistoryStore(256);
+    private TransferFeed feed;
+
+    @AfterEach
+    void stop() {
+        if (feed != null) {
+            feed.stop();
+        }
+    }
+
+    @Test
+    void replaysRecordsAfterLastEventIdThenStreamsLive() throws Exception {
+        feed = feed(16, 10);
+        for (int i = 0; i < 6; i++) {
+            history.append(i % 2 == 0 ? item("alice", "bob") : item("bob", "carol"));
+        }
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter, "alice", 0L);
+        assertThat(emitter.next()).isEqualTo("transfer:2");
+        assertThat(emitter.next()).isEqualTo("transfer:4");
+
+        history.append(item("bob", "carol"));
+        history.append(item("carol", "alice"));
+        assertThat(emitter.next()).isEqualTo("transfer:7");
+        assertThat(emitter.poll(200)).isNull();
+    }
+
+    @Test
+    void withoutLastEventIdOnlyLiveRecordsAreSent() throws Exception {
+        feed = feed(16, 10);
+        history.append(item("alice", "bob"));
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter, null, null);
+        assertThat(emitter.poll(200)).isNull();
+
+        history.append(item("bob", "carol"));
+        assertThat(emitter.next()).isEqualTo("transfer:1");
+    }
+
+    @Test
+    void replayStartsAtOldestRetainedRecord() throws Exception {
+        feed = feed(16, 10);
+        for (int i = 0; i < 1_000; i++) {
+            history.append(item("alice", "bob"));
+        }
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter, null, 3L);
+
+        assertThat(emitter.next()).isEqualTo("transfer:" + history.head());
+    }
+
+    @Test
+    void recordsPublishedDuringReplayAreSentExactlyOnce() throws Exception {
+        feed = feed(4_096, 10);
+        for (int i = 0; i < 200; i++) {
+            history.append(item("alice", "bob"));
+        }
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        Thread writer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 200; i++) {
+                history.append(item("alice", "bob"));
+            }
+        });
+        feed.subscribe(emitter, "alice", 99L);
+        writer.join();
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ids.add(Long.parseLong(emitter.next().substring("transfer:".length())));
+        }
+        assertThat(emitter.poll(200)).isNull();
+        assertThat(ids).doesNotHaveDuplicates().allSatisfy(id -> assertThat(id).isBetween(100L, 399L));
+    }
+
+    @Test
+    void slowSubscriberGetsOverflowEventAndIsDisconnected() throws Exception {
+        feed = feed(2, 10);
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.blockNextSend();
+        feed.subscribe(emitter, null, null);
+
+        history.append(item("alice", "bob"));
+        // Поток подписчика забрал первую запись и застрял в отправке; очередь на две записи.
+        assertThat(emitter.blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        history.append(item("alice", "bob"));
+        history.append(item("alice", "bob"));
+        history.append(item("alice", "bob"));
+        assertThat(registry.get("banksys.feed.subscribers").gauge().value()).isZero();
+        emitter.release.countDown();
+
+        assertThat(emitter.next()).isEqualTo("transfer:0");
+        assertThat(emitter.next()).isEqualTo("transfer:1");
+        assertThat(emitter.next()).isEqualTo("transfer:2");
+        assertThat(emitter.next()).isEqualTo("overflow");
+        assertThat(registry.get("banksys.feed.overflows").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void limitsNumberOfSubscribers() {
+        feed = feed(16, 1);
+        feed.subscribe(new RecordingEmitter(), null, null);
+
+        assertThatThrownBy(() -> feed.subscribe(new RecordingEmitter(), null, null))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void concurrentSubscriptionsDoNotExceedLimit() throws Exception {
+        feed = feed(16, 4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        feed.subscribe(new RecordingEmitter(), null, null);
+                        return true;
+                    } catch (IllegalStateException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                accepted += result.get(5, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertThat(accepted).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void closedSubscriberFreesItsSlot() throws Exception {
+        feed = feed(16, 1);
+        // Первый же пинг падает, как при ушедшем клиенте, и поток подписчика завершается.
+        feed.subscribe(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                throw new IOException("клиент отключился");
+            }
+        }, null, null);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (true) {
+            try {
+                feed.subscribe(new RecordingEmitter(), null, null);
+                break;
+            } catch (IllegalStateException e) {
+                assertThat(System.currentTimeMillis()).as("место не освободилось").isLessThan(deadline);
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private TransferFeed feed(int bufferSize, int maxSubscribers) {
+        TransferFeed created = new TransferFeed(history, new BankMetrics(registry), bufferSize, maxSubscribers, 60_000, 50);
+        created.start();
+        return created;
+    }
+
+    private static TransferHistoryItem item(String from, String to) {
+        return new TransferHistoryItem(from, null, to, null, new BigDecimal("1.00"), "KZT", "test",
+                LocalDateTime.of(2026, 10, 18, 12, 0));
+    }
+
+    /** Эмиттер без HTTP-ответа: запоминает события вида {@code transfer:<id>} и {@code overflow}, пинги пропускает. */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blockNext;
+
+        void blockNextSend() {
+            blockNext = true;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String value) {
+                    text.append(value);
+                }
+            }
+            String event = text.toString();
+            if (event.startsWith(":")) {
+                return;
+            }
+            if (blockNext) {
+                blockNext = false;
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            if (event.contains("event:overflow")) {
+                events.add("overflow");
+            } else {
+                String id = event.substring(event.indexOf("id:") + 3, event.indexOf('\n'));
+                events.add("transfer:" + id);
+            }
+        }
+
+        String next() throws InterruptedException {
+            String event = poll(5_000);
+            assertThat(event).as("событие не пришло").isNotNull();
+            return event;
+        }
+
+        String poll(long millis) throws InterruptedException {
+            return events.poll(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.banksys.service;
+
+import com.example.banksys.dto.TransferHistoryItem;
+import com.example.banksys.dto.TransferHistoryPage;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransferHistoryStoreTest {
+
+    // Журнал хранит чанками по 256 записей: при retention=256 в кольце два чанка,
+    // и после 1000 записей читаемы позиции [512, 1000).
+    private static final int RETENTION = 256;
+    private static final int WRITTEN = 1000;
+    private static final long HEAD = 512;
+
+    @Test
+    void evictsWholeChunksBeyondRetention() {
+        TransferHistoryStore store = filled();
+
+        assertThat(store.head()).isEqualTo(HEAD);
+        assertThat(store.tail()).isEqualTo(WRITTEN);
+        assertThat(store.size()).isEqualTo(WRITTEN - HEAD);
+        assertThat(store.get(HEAD - 1)).isNull();
+        assertThat(store.get(HEAD).getId()).isEqualTo(HEAD);
+        assertThat(store.get(WRITTEN)).isNull();
+    }
+
+    @Test
+    void pagingBackwardsVisitsEveryRetainedRecordOnce() {
+        TransferHistoryStore store = filled();
+
+        List<Long> ids = new ArrayList<>();
+        Long before = null;
+        int pages = 0;
+        do {
+            TransferHistoryPage page = store.page(null, before, null, 100);
+            page.getItems().forEach(item -> ids.add(item.getId()));
+            before = page.getNextCursor();
+            pages++;
+        } while (before != null);
+
+        assertThat(pages).isEqualTo(5);
+        assertThat(ids).hasSize((int) (WRITTEN - HEAD));
+        for (int i = 0; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isEqualTo(WRITTEN - 1 - i);
+        }
+    }
+
+    @Test
+    void firstPageStartsAtNewestAndReturnsCursors() {
+        TransferHistoryPage page = filled().page(null, null, null, 10);
+
+        assertThat(page.getItems()).extracting(TransferHistoryItem::getId).startsWith(999L, 998L).hasSize(10);
+        assertThat(page.getNextCursor()).isEqualTo(990L);
+        assertThat(page.getPrevCursor()).isEqualTo(999L);
+    }
+
+    @Test
+    void cursorOlderThanRetentionIsClampedToHead() {
+        TransferHistoryStore store = filled();
+
+        TransferHistoryPage after = store.page(null, null, 10L, 5);
+        assertThat(after.getItems()).extracting(TransferHistoryItem::getId)
+                .containsExactly(HEAD + 4, HEAD + 3, HEAD + 2, HEAD + 1, HEAD);
+        assertThat(after.getPrevCursor()).isEqualTo(HEAD + 4);
+        // Старше head ничего нет — курсора «дальше в прошлое» нет.
+        assertThat(after.getNextCursor()).isNull();
+
+        TransferHistoryPage before = store.page(null, 100L, null, 5);
+        assertThat(before.getItems()).isEmpty();
+        assertThat(before.getNextCursor()).isNull();
+    }
+
+    @Test
+    void pollingAfterNewestReturnsNothingUntilNewRecords() {
+        TransferHistoryStore store = filled();
+
+        TransferHistoryPage empty = store.page(null, null, (long) WRITTEN - 1, 50);
+        assertThat(empty.getItems()).isEmpty();
+        assertThat(empty.getPrevCursor()).isEqualTo(WRITTEN - 1);
+
+        store.append(item("a", "b"));
+        TransferHistoryPage next = store.page(null, null, empty.getPrevCursor(), 50);
+        assertThat(next.getItems()).extracting(TransferHistoryItem::getId).containsExactly((long) WRITTEN);
+    }
+
+    @Test
+    void userPagesContainOnlyTheirRecordsWithUserCursors() {
+        TransferHistoryStore store = new TransferHistoryStore(RETENTION);
+        for (int i = 0; i < 30; i++) {
+            store.append(i % 3 == 0 ? item("alice", "bob") : item("carol", "dave"));
+        }
+
+        TransferHistoryPage first = store.page("Alice", null, null, 4);
+        assertThat(first.getItems()).hasSize(4)
+                .allSatisfy(item -> assertThat(TransferHistoryStore.involves(item, "alice")).isTrue());
+        assertThat(first.getItems()).extracting(TransferHistoryItem::getId).containsExactly(27L, 24L, 21L, 18L);
+
+        TransferHistoryPage second = store.page("alice", first.getNextCursor(), null, 100);
+        assertThat(second.getItems()).extracting(TransferHistoryItem::getId)
+                .containsExactly(15L, 12L, 9L, 6L, 3L, 0L);
+        assertThat(second.getNextCursor()).isNull();
+        assertThat(store.page("nobody", null, null, 10).getItems()).isEmpty();
+    }
+
+    @Test
+    void manyDistinctUsersDoNotGrowMemoryBeyondRetention() {
+        TransferHistoryStore store = new TransferHistoryStore(RETENTION);
+        for (int i = 0; i < 50_000; i++) {
+            store.append(item("payer" + i, "payee" + i));
+        }
+
+        // Живы только журналы участников последних двух окон хранения.
+        assertThat(store.userLogCount()).isLessThanOrEqualTo(2 * 2 * RETENTION);
+        assertThat(store.page("payer0", null, null, 10).getItems()).isEmpty();
+        assertThat(store.page("payer49999", null, null, 10).getItems())
+                .extracting(TransferHistoryItem::getId).containsExactly(49_999L);
+    }
+
+    @Test
+    void activeUserLogIsTrimmedToGlobalHead() {
+        TransferHistoryStore store = new TransferHistoryStore(RETENTION);
+        for (int i = 0; i < 50_000; i++) {
+            store.append(i % 10 == 0 ? item("alice", "bob" + i) : item("carol" + i, "dave" + i));
+        }
+
+        List<Long> ids = new ArrayList<>();
+        Long before = null;
+        do {
+            TransferHistoryPage page = store.page("alice", before, null, 500);
+            page.getItems().forEach(item -> ids.add(item.getId()));
+            before = page.getNextCursor();
+        } while (before != null);
+
+        assertThat(ids).isNotEmpty().startsWith(49_990L);
+        // Не retention своих записей (они покрыли бы 2560 общих id), а только то, что ещё рядом с общим head.
+        assertThat(ids.get(ids.size() - 1)).isGreaterThanOrEqualTo(store.head() - RETENTION - 10 * 256);
+        assertThat(ids).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+    }
+
+    @Test
+    void logRingGrowsUpToRetentionWithoutLosingRecords() {
+        HistoryLog log = new HistoryLog(2_000);
+        for (int i = 0; i < 5_000; i++) {
+            TransferHistoryItem item = item("a", "b");
+            item.setId((long) i);
+            log.append(item);
+            // Пока кольцо растёт, ни одна удерживаемая запись не теряется.
+            assertThat(log.get(log.head()).getId()).isEqualTo(log.head());
+        }
+
+        // 2000 записей — 8 чанков, плюс заполняемый.
+        assertThat(log.head()).isEqualTo(5_000 / 256 * 256 - 8 * 256);
+        for (long position = log.head(); position < log.tail(); position++) {
+            assertThat(log.get(position).getId()).isEqualTo(position);
+        }
+        assertThat(log.get(log.head() - 1)).isNull();
+    }
+
+    private static TransferHistoryStore filled() {
+        TransferHistoryStore store = new TransferHistoryStore(RETENTION);
+        for (int i = 0; i < WRITTEN; i++) {
+            store.append(item("u" + (i % 7), "u" + ((i + 1) % 7)));
+        }
+        return store;
+    }
+
+    static TransferHistoryItem item(String from, String to) {
+        return new TransferHistoryItem(from, null, to, null, new BigDecimal("10.00"), "KZT", "test",
+                LocalDateTime.of(2026, 10, 18, 12, 0));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.banksys.service;
+
+import com.example.banksys.metrics.BankMetrics;
+import com.example.banksys.model.Transfer;
+import com.example.banksys.repository.TransferRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TransferHistoryWriterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TransferRepository repository = mock(TransferRepository.class);
+    private TransferHistoryWriter writer;
+
+    @AfterEach
+    void stop() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void blockModeDoesNotWaitForWorkerThatNeverStarted() {
+        writer = writer(true, "block");
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 10; i++) {
+                writer.publish(transfer());
+            }
+        });
+
+        verify(repository, times(10)).saveAll(anyList());
+        assertThat(count("banksys.history.writer.bypassed")).isEqualTo(10);
+        assertThat(rows("written")).isEqualTo(10);
+    }
+
+    @Test
+    void blockModeDoesNotWaitAfterStop() {
+        writer = writer(true, "block");
+        writer.start();
+        writer.stop();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 10; i++) {
+                writer.publish(transfer());
+            }
+        });
+
+        assertThat(count("banksys.history.writer.bypassed")).isEqualTo(10);
+        assertThat(rows("written")).isEqualTo(10);
+    }
+
+    @Test
+    void runningWorkerWritesPublishedTransfers() {
+        writer = writer(true, "block");
+        writer.start();
+
+        for (int i = 0; i < 10; i++) {
+            writer.publish(transfer());
+        }
+
+        verify(repository, timeout(5_000).atLeastOnce()).saveAll(anyList());
+        writer.stop();
+        assertThat(rows("written")).isEqualTo(10);
+        assertThat(count("banksys.history.writer.bypassed")).isZero();
+    }
+
+    @Test
+    void disabledWriterDropsAndCounts() {
+        writer = writer(false, "block");
+        writer.start();
+
+        writer.publish(transfer());
+
+        verify(repository, never()).saveAll(anyList());
+        assertThat(rows("dropped")).isEqualTo(1);
+        assertThat(count("banksys.history.writer.bypassed")).isEqualTo(1);
+    }
+
+    private TransferHistoryWriter writer(boolean enabled, String backpressure) {
+        return new TransferHistoryWriter(repository, mock(PlatformTransactionManager.class), enabled, 2, 10,
+                backpressure, new BankMetrics(registry));
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+
+    private double rows(String result) {
+        return registry.get("banksys.history.writer.rows").tag("result", result).counter().count();
+    }
+
+    private static Transfer transfer() {
+        return new Transfer(1L, 2L, "alice", "bob", 100, "KZT", "test", LocalDateTime.of(2026, 10, 18, 12, 0));
+    }
+}